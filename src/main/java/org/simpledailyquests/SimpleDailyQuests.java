@@ -36,6 +36,7 @@ public final class SimpleDailyQuests extends JavaPlugin {
 
         // Enregistrement des listeners
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+        getServer().getPluginManager().registerEvents(questManager.getProgressBuffer(), this);
 
         // Enregistrement des commandes
         getCommand("dailyquest").setExecutor(new DailyQuestCommand(this));
@@ -46,6 +47,10 @@ public final class SimpleDailyQuests extends JavaPlugin {
 
         // Démarrage de la sauvegarde automatique
         playerDataManager.startAutoSave();
+        playerDataManager.startCacheEviction();
+        playerDataManager.startBackups();
+        playerDataManager.startRetention();
+        playerDataManager.startLeaseRenewal();
 
         getLogger().info("SimpleDailyQuests activé avec succès!");
     }
@@ -54,9 +59,14 @@ public final class SimpleDailyQuests extends JavaPlugin {
     public void onDisable() {
         getLogger().info("Arrêt de SimpleDailyQuests...");
 
+        // Applique les progrès du dernier tick avant la sauvegarde
+        if (questManager != null) {
+            questManager.flushProgress();
+        }
+
         // Sauvegarde des données avant fermeture
         if (playerDataManager != null) {
-            playerDataManager.savePlayerData();
+            playerDataManager.shutdown();
         }
 
         // Suppression des scoreboards
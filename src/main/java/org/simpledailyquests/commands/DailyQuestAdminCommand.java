@@ -1,18 +1,30 @@
 package org.simpledailyquests.commands;
 
 import org.simpledailyquests.SimpleDailyQuests;
+import org.simpledailyquests.managers.PlayerDataCache;
 import org.simpledailyquests.managers.PlayerQuestData;
+import org.simpledailyquests.storage.LegacyYamlMigrator;
 import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+import org.simpledailyquests.storage.PlayerDataWriter;
+import org.simpledailyquests.storage.PlayerLeases;
+import org.simpledailyquests.storage.StorageBenchmark;
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
@@ -76,6 +88,22 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
                 handleCleanupCommand(sender, args);
                 break;
 
+            case "backup":
+                handleBackupCommand(sender, args);
+                break;
+
+            case "benchmark":
+                handleBenchmarkCommand(sender, args);
+                break;
+
+            case "history":
+                handleHistoryCommand(sender, args);
+                break;
+
+            case "migrate":
+                handleMigrateCommand(sender, args);
+                break;
+
             case "help":
                 showAdminHelp(sender);
                 break;
@@ -209,7 +237,15 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
      */
     private void showPlayerInfo(CommandSender sender, Player target, PlayerQuestData playerData) {
         sender.sendMessage("§6=== Informations de " + target.getName() + " ===");
-        sender.sendMessage("§eQuêtes terminées: §f" + playerData.getTotalCompletedQuests());
+        sender.sendMessage("§eQuêtes terminées: §f" + playerData.getTotalCompletedQuests()
+                + " §7(aujourd'hui " + playerData.getCounters().countLastDays(System.currentTimeMillis(), 1)
+                + ", 7 jours " + playerData.getCounters().countLastDays(System.currentTimeMillis(), 7) + ")");
+
+        StringBuilder byType = new StringBuilder("§ePar type: §f");
+        for (Quest.QuestType type : Quest.QuestType.values()) {
+            byType.append(type.name()).append(" ").append(playerData.getCompletedQuestCount(type)).append("  ");
+        }
+        sender.sendMessage(byType.toString().trim());
 
         for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
             int active = playerData.getActiveQuestCount(rarity);
@@ -314,8 +350,14 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
      * Sauvegarde les données
      */
     private void saveData(CommandSender sender) {
-        plugin.getPlayerDataManager().savePlayerData();
-        sender.sendMessage("§a[SimpleDailyQuests] Données sauvegardées avec succès!");
+        plugin.getPlayerDataManager().savePlayerData().whenComplete((saved, error) ->
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    if (error != null) {
+                        sender.sendMessage("§c[SimpleDailyQuests] Erreur lors de la sauvegarde, consultez la console.");
+                    } else {
+                        sender.sendMessage("§a[SimpleDailyQuests] Données sauvegardées avec succès! (" + saved + " joueur(s))");
+                    }
+                }));
     }
 
     /**
@@ -358,6 +400,32 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
             double avgCompleted = (double) totalCompletedQuests / totalPlayers;
             sender.sendMessage("§eMoyenne par joueur: §f" + String.format("%.1f", avgCompleted) + " quêtes terminées");
         }
+
+        PlayerDataWriter writer = plugin.getPlayerDataManager().getWriter();
+        if (writer != null) {
+            sender.sendMessage("§eStockage: §f" + plugin.getPlayerDataManager().getStorage().getName());
+            PlayerDataCache cache = plugin.getPlayerDataManager().getCache();
+            sender.sendMessage("§eCache joueurs: §f" + cache.size() + " en mémoire, " + cache.getHitCount() + " succès, "
+                    + cache.getMissCount() + " échecs, " + cache.getEvictionCount() + " évictions");
+            sender.sendMessage("§eCibles suivies: §f" + plugin.getPlayerDataManager().getQuestInterest().getWantedCount()
+                    + " (les autres événements sont ignorés)");
+            if (plugin.getPlayerDataManager().getJournal() != null) {
+                sender.sendMessage("§eJournal: §f" + plugin.getPlayerDataManager().getJournal().getRecordCount() + " événement(s) journalisé(s)");
+            }
+            if (plugin.getPlayerDataManager().getEventLog() != null) {
+                sender.sendMessage("§eÉvénements: §f" + plugin.getPlayerDataManager().getEventLog().getRecordCount()
+                        + " enregistré(s), segment n°" + plugin.getPlayerDataManager().getEventLog().getSegment());
+            }
+            sender.sendMessage("§eFile d'écriture: §f" + writer.getPendingCount() + " en attente, "
+                    + writer.getWrittenCount() + " écrites, " + writer.getCoalescedCount() + " fusionnées");
+            if (plugin.getPlayerDataManager().isShared()) {
+                sender.sendMessage("§eConflits entre serveurs: §f" + writer.getConflictCount() + " écriture(s) refusée(s) puis fusionnée(s)");
+            }
+            PlayerLeases leases = plugin.getPlayerDataManager().getLeases();
+            if (leases != null) {
+                sender.sendMessage("§eTransferts (" + leases.getOwner() + "): §f" + leases.describe());
+            }
+        }
     }
 
     /**
@@ -365,7 +433,7 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
      */
     private void handleCleanupCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage("§cUsage: /dqa cleanup <expired|offline>");
+            sender.sendMessage("§cUsage: /dqa cleanup <expired|offline> [confirm]");
             return;
         }
 
@@ -383,8 +451,23 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
                 break;
 
             case "offline":
-                // Cette fonctionnalité nécessiterait une gestion plus complexe des données hors ligne
-                sender.sendMessage("§c[SimpleDailyQuests] Fonctionnalité non implémentée pour cette version.");
+                // Simulation par défaut : "confirm" supprime réellement
+                boolean dryRun = args.length < 3 || !args[2].equalsIgnoreCase("confirm");
+                boolean started = plugin.getPlayerDataManager().getRetentionJob().start(dryRun, report -> {
+                    sender.sendMessage("§6=== " + (report.isDryRun() ? "Simulation de rétention" : "Rétention") + " ===");
+                    for (String line : report.describe()) {
+                        sender.sendMessage((report.getError() != null && line.startsWith("Passage") ? "§c" : "§e") + line);
+                    }
+                    if (report.isDryRun() && report.getStale() > 0) {
+                        sender.sendMessage("§7Utilisez §e/dqa cleanup offline confirm §7pour les supprimer.");
+                    }
+                });
+                if (!started) {
+                    sender.sendMessage("§c[SimpleDailyQuests] Un passage de rétention est déjà en cours (ou le stockage est indisponible).");
+                } else {
+                    sender.sendMessage("§e[SimpleDailyQuests] " + (dryRun ? "Simulation" : "Suppression")
+                            + " des joueurs inactifs en cours, par tranches...");
+                }
                 break;
 
             default:
@@ -393,6 +476,254 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    /**
+     * Gère les sauvegardes du stockage (création, liste, restauration)
+     */
+    private void handleBackupCommand(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage("§cUsage: /dqa backup <create|list|restore> [nom]");
+            return;
+        }
+
+        switch (args[1].toLowerCase()) {
+            case "create":
+                sender.sendMessage("§e[SimpleDailyQuests] Création de la sauvegarde en cours...");
+                plugin.getPlayerDataManager().createBackup().whenComplete((backup, error) ->
+                        plugin.getServer().getScheduler().runTask(plugin, () -> {
+                            if (error != null) {
+                                sender.sendMessage("§c[SimpleDailyQuests] Erreur lors de la sauvegarde: " + error.getMessage());
+                            } else {
+                                sender.sendMessage("§a[SimpleDailyQuests] Sauvegarde créée: §f" + backup.getName());
+                            }
+                        }));
+                break;
+
+            case "list":
+                List<File> backups = plugin.getPlayerDataManager().listBackups();
+                if (backups.isEmpty()) {
+                    sender.sendMessage("§e[SimpleDailyQuests] Aucune sauvegarde disponible.");
+                    return;
+                }
+                sender.sendMessage("§6=== Sauvegardes (" + backups.size() + ") ===");
+                for (File backup : backups) {
+                    sender.sendMessage("§e" + backup.getName().replace(".zip", "") + " §7- " + (backup.length() / 1024) + " Ko");
+                }
+                break;
+
+            case "restore":
+                if (args.length < 3) {
+                    sender.sendMessage("§cUsage: /dqa backup restore <nom>");
+                    return;
+                }
+                sender.sendMessage("§e[SimpleDailyQuests] Restauration de " + args[2] + " en cours...");
+                plugin.getPlayerDataManager().restoreBackup(args[2]).whenComplete((ignored, error) ->
+                        plugin.getServer().getScheduler().runTask(plugin, () -> {
+                            if (error != null) {
+                                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                                sender.sendMessage("§c[SimpleDailyQuests] Restauration impossible: " + cause.getMessage());
+                            } else {
+                                sender.sendMessage("§a[SimpleDailyQuests] Sauvegarde restaurée avec succès!");
+                            }
+                        }));
+                break;
+
+            default:
+                sender.sendMessage("§cAction invalide. Utilisez: create, list, restore");
+                break;
+        }
+    }
+
+    /**
+     * Compare les formats de stockage (YAML et binaire) sur des données générées, en arrière-plan
+     */
+    private void handleBenchmarkCommand(CommandSender sender, String[] args) {
+        int players = 1000;
+        if (args.length >= 2) {
+            try {
+                players = Math.max(1, Math.min(20000, Integer.parseInt(args[1])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /dqa benchmark [joueurs]");
+                return;
+            }
+        }
+
+        int playerCount = players;
+        sender.sendMessage("§e[SimpleDailyQuests] Comparaison des formats sur " + playerCount + " joueur(s) en cours...");
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> report;
+            try {
+                report = StorageBenchmark.run(plugin.getLogger(), new File(plugin.getDataFolder(), "benchmark"), playerCount);
+            } catch (IOException e) {
+                report = List.of("§cErreur pendant la comparaison: " + e.getMessage());
+            }
+
+            List<String> lines = report;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                sender.sendMessage("§6=== Comparaison des formats de stockage ===");
+                for (String line : lines) {
+                    sender.sendMessage("§e" + line);
+                }
+            });
+        });
+    }
+
+    /**
+     * Affiche l'historique des quêtes terminées d'un joueur (en ligne ou non) sur les derniers jours.
+     * Les données d'un joueur hors ligne et le détail sont relus en arrière-plan (plage demandée seulement).
+     */
+    private void handleHistoryCommand(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage("§cUsage: /dqa history <joueur|uuid> [jours]");
+            return;
+        }
+
+        UUID playerUUID = resolvePlayerUUID(args[1]);
+        if (playerUUID == null) {
+            sender.sendMessage("§cJoueur introuvable: " + args[1]);
+            return;
+        }
+
+        int days = 7;
+        if (args.length >= 3) {
+            try {
+                days = Math.max(1, Math.min(365, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /dqa history <joueur|uuid> [jours]");
+                return;
+            }
+        }
+
+        int period = days;
+        plugin.getPlayerDataManager().whenLoaded(playerUUID).whenComplete((playerData, error) -> {
+            if (error != null) {
+                sender.sendMessage("§c[SimpleDailyQuests] Données illisibles: " + error.getMessage());
+            } else if (playerData == null) {
+                sender.sendMessage("§cAucune donnée enregistrée pour " + args[1]);
+            } else {
+                showHistory(sender, playerData, period);
+            }
+        });
+    }
+
+    /**
+     * UUID d'un joueur en ligne, d'un joueur déjà venu sur le serveur (sans requête réseau) ou donné directement
+     */
+    private UUID resolvePlayerUUID(String name) {
+        Player online = Bukkit.getPlayer(name);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        OfflinePlayer offline = Bukkit.getOfflinePlayerIfCached(name);
+        if (offline != null) {
+            return offline.getUniqueId();
+        }
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void showHistory(CommandSender sender, PlayerQuestData playerData, int days) {
+        long now = System.currentTimeMillis();
+        long since = now - days * 24L * 60 * 60 * 1000;
+
+        sender.sendMessage("§6=== Historique de " + playerData.getPlayerName() + " (" + days + " jours) ===");
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            sender.sendMessage("§e" + rarity.name() + ": §f" + playerData.getHistory().countSince(rarity, since)
+                    + " §7(total " + playerData.getHistory().getTotal(rarity) + ")");
+        }
+
+        List<PlayerDataSnapshot.CompletedEntry> recent = new ArrayList<>();
+        for (PlayerDataSnapshot.CompletedEntry entry : playerData.getHistory().getRecentEntries()) {
+            if (entry.getCompletionTime() >= since) {
+                recent.add(entry);
+            }
+        }
+
+        UUID playerUUID = playerData.getPlayerUUID();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>();
+            String error = null;
+            try {
+                entries.addAll(plugin.getPlayerDataManager().readStoredHistory(playerUUID, since, now));
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+            // L'archive et la fenêtre chaude peuvent se recouvrir juste après une compaction
+            for (PlayerDataSnapshot.CompletedEntry entry : recent) {
+                if (entries.stream().noneMatch(archived -> archived.getCompletionTime() == entry.getCompletionTime()
+                        && archived.getQuestId().equals(entry.getQuestId()))) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort((first, second) -> Long.compare(second.getCompletionTime(), first.getCompletionTime()));
+
+            String readError = error;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (readError != null) {
+                    sender.sendMessage("§c[SimpleDailyQuests] Archive illisible: " + readError);
+                }
+                if (entries.isEmpty()) {
+                    sender.sendMessage("§7Aucune quête terminée sur la période.");
+                    return;
+                }
+                SimpleDateFormat format = new SimpleDateFormat("dd/MM HH:mm");
+                int shown = Math.min(10, entries.size());
+                sender.sendMessage("§e" + shown + " dernière(s) sur " + entries.size() + ":");
+                for (int i = 0; i < shown; i++) {
+                    PlayerDataSnapshot.CompletedEntry entry = entries.get(i);
+                    sender.sendMessage("  §7" + format.format(new Date(entry.getCompletionTime()))
+                            + " §f" + entry.getQuestId() + " §7(" + entry.getRarity().name() + ")");
+                }
+            });
+        });
+    }
+
+    /**
+     * Migre en flux un ancien fichier YAML (dans le dossier du plugin) vers un autre stockage, en arrière-plan
+     */
+    private void handleMigrateCommand(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage("§cUsage: /dqa migrate <fichier> <yaml|binary|sqlite|shared> [taille-lot]");
+            return;
+        }
+
+        String type = args[2].toLowerCase();
+        if (!Arrays.asList("yaml", "binary", "sqlite", "shared").contains(type)) {
+            sender.sendMessage("§cType de stockage invalide. Utilisez: yaml, binary, sqlite, shared");
+            return;
+        }
+
+        int batchSize = 500;
+        if (args.length >= 4) {
+            try {
+                batchSize = Math.max(1, Integer.parseInt(args[3]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /dqa migrate <fichier> <yaml|binary|sqlite|shared> [taille-lot]");
+                return;
+            }
+        }
+
+        // Seul le nom est conservé : le fichier doit se trouver dans le dossier du plugin
+        File source = new File(plugin.getDataFolder(), new File(args[1]).getName());
+        int size = batchSize;
+        sender.sendMessage("§e[SimpleDailyQuests] Migration de " + source.getName() + " vers " + type + " en cours...");
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String message;
+            try {
+                LegacyYamlMigrator.Result result = plugin.getPlayerDataManager().migrateYamlFile(source, type, size);
+                message = "§a[SimpleDailyQuests] Migration terminée: §f" + result.describe();
+            } catch (IOException e) {
+                message = "§c[SimpleDailyQuests] Migration interrompue: " + e.getMessage()
+                        + " §7(relancez la commande pour reprendre)";
+            }
+
+            String finalMessage = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(finalMessage));
+        });
+    }
+
     /**
      * Affiche l'aide administrative
      */
@@ -406,7 +737,11 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("§e/dqa save §7- Sauvegarde les données");
         sender.sendMessage("§e/dqa debug <on|off> §7- Active/désactive le debug");
         sender.sendMessage("§e/dqa stats §7- Statistiques globales");
-        sender.sendMessage("§e/dqa cleanup <expired|offline> §7- Nettoie les données");
+        sender.sendMessage("§e/dqa cleanup <expired|offline> [confirm] §7- Nettoie les données");
+        sender.sendMessage("§e/dqa backup <create|list|restore> [nom] §7- Gère les sauvegardes");
+        sender.sendMessage("§e/dqa benchmark [joueurs] §7- Compare les formats de stockage");
+        sender.sendMessage("§e/dqa history <joueur|uuid> [jours] §7- Historique des quêtes terminées (même hors ligne)");
+        sender.sendMessage("§e/dqa migrate <fichier> <type> [taille-lot] §7- Migre un ancien fichier YAML");
         sender.sendMessage("§e/dqa help §7- Affiche cette aide");
     }
 
@@ -421,7 +756,7 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             // Sous-commandes principales
             List<String> subCommands = Arrays.asList("reload", "reset", "generate", "info", "complete",
-                    "save", "debug", "stats", "cleanup", "help");
+                    "save", "debug", "stats", "cleanup", "backup", "benchmark", "history", "migrate", "help");
             String input = args[0].toLowerCase();
 
             for (String subCommand : subCommands) {
@@ -440,15 +775,40 @@ public class DailyQuestAdminCommand implements CommandExecutor, TabCompleter {
                         .map(Player::getName)
                         .filter(name -> name.toLowerCase().startsWith(input))
                         .collect(Collectors.toList()));
+            } else if (subCommand.equals("history")) {
+                String input = args[1].toLowerCase();
+                completions.addAll(Bukkit.getOnlinePlayers().stream()
+                        .map(Player::getName)
+                        .filter(name -> name.toLowerCase().startsWith(input))
+                        .collect(Collectors.toList()));
             } else if (subCommand.equals("debug")) {
                 completions.addAll(Arrays.asList("on", "off"));
             } else if (subCommand.equals("cleanup")) {
                 completions.addAll(Arrays.asList("expired", "offline"));
+            } else if (subCommand.equals("backup")) {
+                completions.addAll(Arrays.asList("create", "list", "restore"));
+            } else if (subCommand.equals("migrate")) {
+                String[] yamlFiles = plugin.getDataFolder().list((dir, name) -> name.endsWith(".yml") || name.endsWith(".migrated"));
+                if (yamlFiles != null) {
+                    completions.addAll(Arrays.asList(yamlFiles));
+                }
             }
         } else if (args.length == 3) {
             String subCommand = args[0].toLowerCase();
 
-            if (subCommand.equals("reset") || subCommand.equals("generate")) {
+            if (subCommand.equals("backup") && args[1].equalsIgnoreCase("restore")) {
+                String input = args[2].toLowerCase();
+                for (File backup : plugin.getPlayerDataManager().listBackups()) {
+                    String backupName = backup.getName().replace(".zip", "");
+                    if (backupName.startsWith(input)) {
+                        completions.add(backupName);
+                    }
+                }
+            } else if (subCommand.equals("migrate")) {
+                completions.addAll(Arrays.asList("yaml", "binary", "sqlite", "shared"));
+            } else if (subCommand.equals("cleanup") && args[1].equalsIgnoreCase("offline")) {
+                completions.add("confirm");
+            } else if (subCommand.equals("reset") || subCommand.equals("generate")) {
                 // Raretés pour les commandes reset et generate
                 String input = args[2].toLowerCase();
                 for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
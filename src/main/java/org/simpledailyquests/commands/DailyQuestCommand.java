@@ -2,6 +2,7 @@ package org.simpledailyquests.commands;
 
 import org.simpledailyquests.SimpleDailyQuests;
 import org.simpledailyquests.gui.QuestGUI;
+import org.simpledailyquests.managers.ConfiguredSound;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -82,13 +83,9 @@ public class DailyQuestCommand implements CommandExecutor, TabCompleter {
         questGUI.openMainMenu(player);
 
         // Son d'ouverture du menu
-        String sound = plugin.getConfigManager().getConfig().getString("sounds.menu-open");
-        if (sound != null && !sound.isEmpty()) {
-            try {
-                player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-            } catch (Exception e) {
-                // Ignore les erreurs de son
-            }
+        ConfiguredSound sound = plugin.getConfigManager().getSettings().getMenuOpenSound();
+        if (sound != null) {
+            sound.play(player, 1.0f, 1.0f);
         }
     }
 
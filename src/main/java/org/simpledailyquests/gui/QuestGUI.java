@@ -1,6 +1,7 @@
 package org.simpledailyquests.gui;
 
 import org.simpledailyquests.SimpleDailyQuests;
+import org.simpledailyquests.managers.ConfiguredSound;
 import org.simpledailyquests.managers.PlayerQuestData;
 import org.simpledailyquests.models.Quest;
 import org.bukkit.Bukkit;
@@ -344,13 +345,9 @@ public class QuestGUI implements Listener {
 
                 if (success) {
                     // Son de récupération
-                    String sound = plugin.getConfigManager().getConfig().getString("sounds.rewards-claimed", "ENTITY_PLAYER_LEVELUP");
-                    if (sound != null && !sound.isEmpty()) {
-                        try {
-                            player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-                        } catch (Exception e) {
-                            // Ignore les erreurs de son
-                        }
+                    ConfiguredSound sound = plugin.getConfigManager().getSettings().getRewardsClaimedSound();
+                    if (sound != null) {
+                        sound.play(player, 1.0f, 1.0f);
                     }
 
                     // Met à jour le menu
@@ -379,13 +376,9 @@ public class QuestGUI implements Listener {
         }
 
         // Son de clic
-        String clickSound = plugin.getConfigManager().getConfig().getString("sounds.menu-click");
-        if (clickSound != null && !clickSound.isEmpty()) {
-            try {
-                player.playSound(player.getLocation(), clickSound, 0.5f, 1.0f);
-            } catch (Exception e) {
-                // Ignore les erreurs de son
-            }
+        ConfiguredSound clickSound = plugin.getConfigManager().getSettings().getMenuClickSound();
+        if (clickSound != null) {
+            clickSound.play(player, 0.5f, 1.0f);
         }
     }
 
@@ -1,9 +1,11 @@
 package org.simpledailyquests.listeners;
 
 import org.simpledailyquests.SimpleDailyQuests;
+import org.simpledailyquests.managers.QuestInterest;
 import org.simpledailyquests.models.Quest;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
@@ -13,9 +15,11 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.*;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerFishEvent;
+import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 
@@ -30,26 +34,36 @@ public class PlayerListener implements Listener {
     }
 
     /**
-     * Gère la connexion des joueurs - charge les données et vérifie les quêtes
+     * Charge les données du joueur hors du thread principal pendant la pré-connexion
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        if (!plugin.getPlayerDataManager().preloadPlayer(event.getUniqueId())) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    "§cImpossible de charger vos données de quêtes, veuillez réessayer.");
+        }
+    }
+
+    /**
+     * Gère la connexion des joueurs - vérifie les quêtes dès que les données sont chargées
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        // Charge les données du joueur immédiatement
-        plugin.getPlayerDataManager().getPlayerData(player);
+        plugin.getPlayerDataManager().whenLoaded(player).thenAccept(playerData -> {
+            playerData.setLastSeen(System.currentTimeMillis());
+            plugin.getQuestManager().checkAndResetPlayerQuests(player);
 
-        // Vérifie et assigne les quêtes avec un délai pour éviter les problèmes de chargement
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (player.isOnline()) {
-                plugin.getQuestManager().checkAndResetPlayerQuests(player);
-
-                // Debug log si activé
-                if (plugin.getConfigManager().getConfig().getBoolean("debug.enabled", false)) {
-                    plugin.getLogger().info("Quêtes vérifiées pour " + player.getName());
-                }
+            // Debug log si activé
+            if (plugin.getConfigManager().getSettings().isDebugEnabled()) {
+                plugin.getLogger().info("Quêtes vérifiées pour " + player.getName());
             }
-        }, 20L); // 1 seconde de délai
+        });
     }
 
     /**
@@ -59,11 +73,14 @@ public class PlayerListener implements Listener {
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
 
+        // Applique les progrès du dernier tick avant la sauvegarde
+        plugin.getQuestManager().flushProgress(player.getUniqueId());
+
         // Nettoie le scoreboard du joueur
         plugin.getScoreboardManager().handlePlayerLeave(player);
 
-        // Sauvegarde les données du joueur
-        plugin.getPlayerDataManager().savePlayerData();
+        // Place les modifications du joueur dans la file d'écriture (retiré du cache après inactivité)
+        plugin.getPlayerDataManager().handlePlayerLeave(player.getUniqueId());
     }
 
     /**
@@ -83,28 +100,33 @@ public class PlayerListener implements Listener {
         block.setMetadata("placed_by_player", new FixedMetadataValue(plugin, true));
 
         // Debug log si activé
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-block-tracking", false)) {
+        if (plugin.getConfigManager().getSettings().isLogBlockTracking()) {
             plugin.getLogger().info("Bloc marqué comme placé par joueur: " + block.getType() + " à " + block.getLocation());
         }
     }
 
     /**
      * Gère la destruction de blocs - quêtes de mine avec vérifications
-     * IMPORTANT: Utilise HIGHEST priority pour vérifier AVANT que d'autres plugins annulent l'événement
+     * MONITOR : l'état d'annulation est définitif, les événements annulés par d'autres plugins ne sont pas reçus
      */
-    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = false)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         Player player = event.getPlayer();
         Block block = event.getBlock();
 
+        // Aucun joueur n'a de quête sur ce bloc
+        if (!plugin.getPlayerDataManager().getQuestInterest().isWanted(Quest.QuestType.MINE, block.getType())) {
+            return;
+        }
+
         // Ignore les joueurs en créatif ou spectateur
         if (player.getGameMode() == GameMode.CREATIVE || player.getGameMode() == GameMode.SPECTATOR) {
             return;
         }
 
         // Vérifie si le monde est autorisé pour les quêtes
-        if (!isWorldAllowed(block.getWorld().getName())) {
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
+        if (!isWorldAllowed(block.getWorld())) {
+            if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
                 plugin.getLogger().info("Bloc ignoré (monde non autorisé): " + block.getWorld().getName());
             }
             return;
@@ -112,34 +134,19 @@ public class PlayerListener implements Listener {
 
         // Vérifie si le bloc était placé par un joueur
         if (block.hasMetadata("placed_by_player")) {
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-block-tracking", false)) {
+            if (plugin.getConfigManager().getSettings().isLogBlockTracking()) {
                 plugin.getLogger().info("Bloc ignoré (placé par joueur): " + block.getType());
             }
             return;
         }
 
-        // Traite d'abord la quête, puis vérifie si l'événement a été annulé
-        Material blockType = block.getType();
-        String blockTypeName = blockType.name().toLowerCase();
-
-        // Utilise un délai pour vérifier si l'événement sera annulé par d'autres plugins
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            // Si l'événement a été annulé par un autre plugin, on ne compte pas le bloc
-            if (event.isCancelled()) {
-                if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                    plugin.getLogger().info("Bloc ignoré (événement annulé): " + blockType);
-                }
-                return;
-            }
+        // Met à jour le progrès des quêtes de mine
+        plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.MINE, block.getType(), 1);
 
-            // Met à jour le progrès des quêtes de mine
-            plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.MINE, blockTypeName, 1);
-
-            // Debug log si activé
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                plugin.getLogger().info(player.getName() + " a miné (valide): " + blockTypeName);
-            }
-        }, 1L); // 1 tick de délai
+        // Debug log si activé
+        if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
+            plugin.getLogger().info(player.getName() + " a miné (valide): " + block.getType().name().toLowerCase());
+        }
     }
 
     /**
@@ -166,7 +173,7 @@ public class PlayerListener implements Listener {
                     Block newBlock = originalBlock.getRelative(event.getDirection());
                     newBlock.setMetadata("placed_by_player", new FixedMetadataValue(plugin, true));
 
-                    if (plugin.getConfigManager().getConfig().getBoolean("debug.log-block-tracking", false)) {
+                    if (plugin.getConfigManager().getSettings().isLogBlockTracking()) {
                         plugin.getLogger().info("Métadonnées transférées (piston extend): " + newBlock.getLocation());
                     }
                 }
@@ -198,7 +205,7 @@ public class PlayerListener implements Listener {
                     Block newBlock = originalBlock.getRelative(event.getDirection());
                     newBlock.setMetadata("placed_by_player", new FixedMetadataValue(plugin, true));
 
-                    if (plugin.getConfigManager().getConfig().getBoolean("debug.log-block-tracking", false)) {
+                    if (plugin.getConfigManager().getSettings().isLogBlockTracking()) {
                         plugin.getLogger().info("Métadonnées transférées (piston retract): " + newBlock.getLocation());
                     }
                 }
@@ -209,23 +216,30 @@ public class PlayerListener implements Listener {
     /**
      * Vérifie si le monde est autorisé pour les quêtes
      */
-    private boolean isWorldAllowed(String worldName) {
-        List<String> allowedWorlds = plugin.getConfigManager().getConfig().getStringList("quest-settings.allowed-worlds");
+    private boolean isWorldAllowed(World world) {
+        return plugin.getConfigManager().getSettings().isWorldAllowed(world);
+    }
 
-        // Si la liste est vide, tous les mondes sont autorisés
-        if (allowedWorlds.isEmpty()) {
-            return true;
+    /**
+     * Un monde de la liste chargé après le plugin : recompile les paramètres pour connaître son UID
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        if (plugin.getConfigManager().getSettings().isListed(event.getWorld())) {
+            plugin.getConfigManager().refreshSettings();
         }
-
-        // Vérifie si le monde est dans la liste (insensible à la casse)
-        return allowedWorlds.stream().anyMatch(world -> world.equalsIgnoreCase(worldName));
     }
 
     /**
-     * Gère la mort des entités - quêtes de kill
+     * Gère la mort des entités - quêtes de kill (MONITOR : morts annulées ignorées)
      */
-    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = false)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onEntityDeath(EntityDeathEvent event) {
+        // Aucun joueur n'a de quête sur cette entité
+        if (!plugin.getPlayerDataManager().getQuestInterest().isWanted(Quest.QuestType.KILL, event.getEntity().getType())) {
+            return;
+        }
+
         // Vérifie que l'entité a été tuée par un joueur
         if (!(event.getEntity().getKiller() instanceof Player)) {
             return;
@@ -239,29 +253,17 @@ public class PlayerListener implements Listener {
         }
 
         // Vérifie si le monde est autorisé pour les quêtes
-        if (!isWorldAllowed(event.getEntity().getWorld().getName())) {
+        if (!isWorldAllowed(event.getEntity().getWorld())) {
             return;
         }
 
-        String entityType = event.getEntity().getType().name().toLowerCase();
-
-        // Utilise un délai pour vérifier si l'événement sera annulé
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (event.isCancelled()) {
-                if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                    plugin.getLogger().info("Kill ignoré (événement annulé): " + entityType);
-                }
-                return;
-            }
+        // Met à jour le progrès des quêtes de kill
+        plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.KILL, event.getEntity().getType(), 1);
 
-            // Met à jour le progrès des quêtes de kill
-            plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.KILL, entityType, 1);
-
-            // Debug log si activé
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                plugin.getLogger().info(player.getName() + " a tué (valide): " + entityType);
-            }
-        }, 1L);
+        // Debug log si activé
+        if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
+            plugin.getLogger().info(player.getName() + " a tué (valide): " + event.getEntity().getType().name().toLowerCase());
+        }
     }
 
     /**
@@ -269,6 +271,12 @@ public class PlayerListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onCraftItem(CraftItemEvent event) {
+        // Aucun joueur n'a de quête sur cet objet
+        ItemStack result = event.getRecipe().getResult();
+        if (result == null || !plugin.getPlayerDataManager().getQuestInterest().isWanted(Quest.QuestType.CRAFT, result.getType())) {
+            return;
+        }
+
         // Vérifie que c'est un joueur qui craft
         if (!(event.getWhoClicked() instanceof Player)) {
             return;
@@ -282,16 +290,10 @@ public class PlayerListener implements Listener {
         }
 
         // Vérifie si le monde est autorisé pour les quêtes
-        if (!isWorldAllowed(player.getWorld().getName())) {
-            return;
-        }
-
-        ItemStack result = event.getRecipe().getResult();
-        if (result == null) {
+        if (!isWorldAllowed(player.getWorld())) {
             return;
         }
 
-        String itemType = result.getType().name().toLowerCase();
         int amount = result.getAmount();
 
         // Gère le shift-click pour crafter plusieurs items d'un coup
@@ -300,70 +302,57 @@ public class PlayerListener implements Listener {
         }
 
         // Met à jour le progrès des quêtes de craft
-        plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.CRAFT, itemType, amount);
+        plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.CRAFT, result.getType(), amount);
 
         // Debug log si activé
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-            plugin.getLogger().info(player.getName() + " a crafté: " + amount + "x " + itemType);
+        if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
+            plugin.getLogger().info(player.getName() + " a crafté: " + amount + "x " + result.getType().name().toLowerCase());
         }
     }
 
     /**
-     * Gère la pêche - quêtes de fish
+     * Gère la pêche - quêtes de fish (MONITOR : prises annulées ignorées)
      */
-    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = false)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerFish(PlayerFishEvent event) {
-        Player player = event.getPlayer();
-
-        // Ignore les joueurs en spectateur
-        if (player.getGameMode() == GameMode.SPECTATOR) {
-            return;
-        }
-
         // Vérifie que le joueur a effectivement attrapé quelque chose
         if (event.getState() != PlayerFishEvent.State.CAUGHT_FISH) {
             return;
         }
 
-        // Vérifie si le monde est autorisé pour les quêtes
-        if (!isWorldAllowed(player.getWorld().getName())) {
+        // Aucun joueur n'a de quête sur cette prise
+        QuestInterest interest = plugin.getPlayerDataManager().getQuestInterest();
+        ItemStack caughtStack = event.getCaught() instanceof Item ? ((Item) event.getCaught()).getItemStack() : null;
+        if (caughtStack != null ? !interest.isWanted(Quest.QuestType.FISH, caughtStack.getType())
+                : !interest.isWanted(Quest.QuestType.FISH)) {
             return;
         }
 
-        // Récupère l'item attrapé
-        String fishType = "fish"; // Type par défaut
-        int amount = 1; // Quantité par défaut
-
-        if (event.getCaught() instanceof Item) {
-            Item caughtItem = (Item) event.getCaught();
-            ItemStack itemStack = caughtItem.getItemStack();
+        Player player = event.getPlayer();
 
-            if (itemStack != null) {
-                fishType = itemStack.getType().name().toLowerCase();
-                amount = itemStack.getAmount();
-            }
+        // Ignore les joueurs en spectateur
+        if (player.getGameMode() == GameMode.SPECTATOR) {
+            return;
         }
 
-        // Utilise un délai pour vérifier si l'événement sera annulé
-        final String finalFishType = fishType;
-        final int finalAmount = amount;
-
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (event.isCancelled()) {
-                if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                    plugin.getLogger().info("Pêche ignorée (événement annulé): " + finalFishType);
-                }
-                return;
-            }
+        // Vérifie si le monde est autorisé pour les quêtes
+        if (!isWorldAllowed(player.getWorld())) {
+            return;
+        }
 
-            // Met à jour le progrès des quêtes de pêche
-            plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.FISH, finalFishType, finalAmount);
+        // Met à jour le progrès des quêtes de pêche (type par défaut "fish" si la prise n'est pas un item)
+        int amount = caughtStack != null ? caughtStack.getAmount() : 1;
+        if (caughtStack != null) {
+            plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.FISH, caughtStack.getType(), amount);
+        } else {
+            plugin.getQuestManager().processQuestProgress(player, Quest.QuestType.FISH, "fish", amount);
+        }
 
-            // Debug log si activé
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
-                plugin.getLogger().info(player.getName() + " a pêché (valide): " + finalAmount + "x " + finalFishType);
-            }
-        }, 1L);
+        // Debug log si activé
+        if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
+            String fishType = caughtStack != null ? caughtStack.getType().name().toLowerCase() : "fish";
+            plugin.getLogger().info(player.getName() + " a pêché (valide): " + amount + "x " + fishType);
+        }
     }
 
     /**
@@ -0,0 +1,219 @@
+package org.simpledailyquests.managers;
+
+import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+
+import java.util.*;
+
+/**
+ * Historique des quêtes terminées d'un joueur, stocké en colonnes de types primitifs.
+ * Seules les complétions récentes (fenêtre chaude) sont gardées en détail ;
+ * les plus anciennes sont résumées en totaux par jour et par rareté, et leur détail est archivé sur disque.
+ */
+public class CompletedQuestHistory {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int RARITY_COUNT = Quest.QuestRarity.values().length;
+
+    // Fenêtre chaude, triée par date de complétion
+    private String[] questIds;
+    private long[] completionTimes;
+    private byte[] rarities;
+    private int size;
+
+    // Totaux par jour : jours triés, et RARITY_COUNT compteurs par jour
+    private int[] rollupDays;
+    private int[] rollupCounts;
+    private int rollupSize;
+
+    public CompletedQuestHistory() {
+        this.questIds = new String[8];
+        this.completionTimes = new long[8];
+        this.rarities = new byte[8];
+        this.rollupDays = new int[4];
+        this.rollupCounts = new int[4 * RARITY_COUNT];
+    }
+
+    /**
+     * Ajoute une complétion à la fenêtre chaude (en gardant l'ordre chronologique)
+     */
+    public void add(String questId, long completionTime, Quest.QuestRarity rarity) {
+        if (size == questIds.length) {
+            int capacity = size * 2;
+            questIds = Arrays.copyOf(questIds, capacity);
+            completionTimes = Arrays.copyOf(completionTimes, capacity);
+            rarities = Arrays.copyOf(rarities, capacity);
+        }
+
+        // Presque toujours un ajout en fin de tableau
+        int index = size;
+        while (index > 0 && completionTimes[index - 1] > completionTime) {
+            index--;
+        }
+        if (index < size) {
+            System.arraycopy(questIds, index, questIds, index + 1, size - index);
+            System.arraycopy(completionTimes, index, completionTimes, index + 1, size - index);
+            System.arraycopy(rarities, index, rarities, index + 1, size - index);
+        }
+
+        questIds[index] = questId;
+        completionTimes[index] = completionTime;
+        rarities[index] = (byte) rarity.ordinal();
+        size++;
+    }
+
+    /**
+     * Vérifie si une complétion est dans la fenêtre chaude
+     */
+    public boolean contains(String questId, long completionTime) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (completionTimes[i] == completionTime && questIds[i].equals(questId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ajoute des complétions résumées (chargement des totaux sauvegardés)
+     */
+    public void addRollup(int day, Quest.QuestRarity rarity, int count) {
+        int index = Arrays.binarySearch(rollupDays, 0, rollupSize, day);
+        if (index < 0) {
+            index = insertRollupDay(-index - 1, day);
+        }
+        rollupCounts[index * RARITY_COUNT + rarity.ordinal()] += count;
+    }
+
+    private int insertRollupDay(int index, int day) {
+        if (rollupSize == rollupDays.length) {
+            rollupDays = Arrays.copyOf(rollupDays, rollupSize * 2);
+            rollupCounts = Arrays.copyOf(rollupCounts, rollupSize * 2 * RARITY_COUNT);
+        }
+        System.arraycopy(rollupDays, index, rollupDays, index + 1, rollupSize - index);
+        System.arraycopy(rollupCounts, index * RARITY_COUNT, rollupCounts, (index + 1) * RARITY_COUNT,
+                (rollupSize - index) * RARITY_COUNT);
+        rollupDays[index] = day;
+        Arrays.fill(rollupCounts, index * RARITY_COUNT, (index + 1) * RARITY_COUNT, 0);
+        rollupSize++;
+        return index;
+    }
+
+    /**
+     * Sort de la fenêtre chaude les complétions plus anciennes que {@code hotMillis} ou au-delà de {@code maxEntries}.
+     * Elles sont ajoutées aux totaux journaliers et renvoyées pour être archivées.
+     */
+    public List<PlayerDataSnapshot.CompletedEntry> compact(long now, long hotMillis, int maxEntries) {
+        int removeCount = Math.max(0, size - Math.max(0, maxEntries));
+        while (removeCount < size && now - completionTimes[removeCount] > hotMillis) {
+            removeCount++;
+        }
+        if (removeCount == 0) {
+            return Collections.emptyList();
+        }
+
+        Quest.QuestRarity[] values = Quest.QuestRarity.values();
+        List<PlayerDataSnapshot.CompletedEntry> archived = new ArrayList<>(removeCount);
+        for (int i = 0; i < removeCount; i++) {
+            Quest.QuestRarity rarity = values[rarities[i]];
+            archived.add(new PlayerDataSnapshot.CompletedEntry(questIds[i], completionTimes[i], rarity));
+            addRollup(dayOf(completionTimes[i]), rarity, 1);
+        }
+
+        System.arraycopy(questIds, removeCount, questIds, 0, size - removeCount);
+        System.arraycopy(completionTimes, removeCount, completionTimes, 0, size - removeCount);
+        System.arraycopy(rarities, removeCount, rarities, 0, size - removeCount);
+        Arrays.fill(questIds, size - removeCount, size, null);
+        size -= removeCount;
+        return archived;
+    }
+
+    /**
+     * Nombre de complétions dans la fenêtre chaude
+     */
+    public int getHotSize() {
+        return size;
+    }
+
+    /**
+     * Nombre total de complétions (fenêtre chaude et totaux journaliers)
+     */
+    public int getTotal() {
+        int total = size;
+        for (int i = 0; i < rollupSize * RARITY_COUNT; i++) {
+            total += rollupCounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Nombre total de complétions d'une rareté
+     */
+    public int getTotal(Quest.QuestRarity rarity) {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            if (rarities[i] == rarity.ordinal()) {
+                total++;
+            }
+        }
+        for (int i = 0; i < rollupSize; i++) {
+            total += rollupCounts[i * RARITY_COUNT + rarity.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Nombre de complétions d'une rareté depuis une date (fenêtre chaude et jours entiers résumés)
+     */
+    public int countSince(Quest.QuestRarity rarity, long since) {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            if (rarities[i] == rarity.ordinal() && completionTimes[i] >= since) {
+                total++;
+            }
+        }
+        int firstDay = dayOf(since);
+        for (int i = 0; i < rollupSize; i++) {
+            if (rollupDays[i] >= firstDay) {
+                total += rollupCounts[i * RARITY_COUNT + rarity.ordinal()];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Copie de la fenêtre chaude, de la plus ancienne à la plus récente
+     */
+    public List<PlayerDataSnapshot.CompletedEntry> getRecentEntries() {
+        Quest.QuestRarity[] values = Quest.QuestRarity.values();
+        List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new PlayerDataSnapshot.CompletedEntry(questIds[i], completionTimes[i], values[rarities[i]]));
+        }
+        return entries;
+    }
+
+    /**
+     * Copie des totaux journaliers non nuls
+     */
+    public List<PlayerDataSnapshot.DailyRollup> getRollups() {
+        Quest.QuestRarity[] values = Quest.QuestRarity.values();
+        List<PlayerDataSnapshot.DailyRollup> rollups = new ArrayList<>();
+        for (int i = 0; i < rollupSize; i++) {
+            for (int r = 0; r < RARITY_COUNT; r++) {
+                int count = rollupCounts[i * RARITY_COUNT + r];
+                if (count > 0) {
+                    rollups.add(new PlayerDataSnapshot.DailyRollup(rollupDays[i], values[r], count));
+                }
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Jour UTC (depuis l'epoch) d'une date en millisecondes
+     */
+    public static int dayOf(long time) {
+        return (int) Math.floorDiv(time, DAY_MILLIS);
+    }
+}
@@ -0,0 +1,138 @@
+package org.simpledailyquests.managers;
+
+import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+
+import java.util.*;
+
+/**
+ * Compteurs incrémentaux des quêtes terminées d'un joueur (total, par rareté, par type et par jour récent).
+ * Mis à jour à chaque complétion et sauvegardés avec le joueur : les statistiques ne parcourent jamais l'historique.
+ */
+public class CompletionCounters {
+
+    /**
+     * Nombre de jours récents dont le total est conservé
+     */
+    public static final int TRACKED_DAYS = 32;
+
+    private int total;
+    private final int[] byRarity;
+    private final int[] byType;
+
+    // Tampon circulaire : le jour d est rangé à l'indice d % TRACKED_DAYS
+    private final int[] days;
+    private final int[] dayCounts;
+
+    public CompletionCounters() {
+        this.byRarity = new int[Quest.QuestRarity.values().length];
+        this.byType = new int[Quest.QuestType.values().length];
+        this.days = new int[TRACKED_DAYS];
+        this.dayCounts = new int[TRACKED_DAYS];
+        Arrays.fill(days, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Compte une complétion (type null s'il est inconnu, par exemple pour un ancien historique)
+     */
+    public void record(Quest.QuestRarity rarity, Quest.QuestType type, long completionTime) {
+        add(rarity, type, CompletedQuestHistory.dayOf(completionTime), 1);
+    }
+
+    /**
+     * Ajoute plusieurs complétions d'un même jour
+     */
+    public void add(Quest.QuestRarity rarity, Quest.QuestType type, int day, int count) {
+        total += count;
+        byRarity[rarity.ordinal()] += count;
+        if (type != null) {
+            byType[type.ordinal()] += count;
+        }
+        addDay(day, count);
+    }
+
+    private void addDay(int day, int count) {
+        int slot = Math.floorMod(day, TRACKED_DAYS);
+        if (days[slot] != day) {
+            if (days[slot] > day) {
+                return; // Jour trop ancien, déjà remplacé par un plus récent
+            }
+            days[slot] = day;
+            dayCounts[slot] = 0;
+        }
+        dayCounts[slot] += count;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCount(Quest.QuestRarity rarity) {
+        return byRarity[rarity.ordinal()];
+    }
+
+    public int getCount(Quest.QuestType type) {
+        return byType[type.ordinal()];
+    }
+
+    /**
+     * Nombre de complétions d'un jour (0 s'il n'est plus suivi)
+     */
+    public int getDayCount(int day) {
+        int slot = Math.floorMod(day, TRACKED_DAYS);
+        return days[slot] == day ? dayCounts[slot] : 0;
+    }
+
+    /**
+     * Nombre de complétions sur les {@code dayCount} derniers jours, aujourd'hui compris (au plus TRACKED_DAYS)
+     */
+    public int countLastDays(long now, int dayCount) {
+        int today = CompletedQuestHistory.dayOf(now);
+        int sum = 0;
+        for (int i = 0; i < Math.min(dayCount, TRACKED_DAYS); i++) {
+            sum += getDayCount(today - i);
+        }
+        return sum;
+    }
+
+    /**
+     * Recharge des compteurs sauvegardés
+     */
+    public void restore(PlayerDataSnapshot.Counters counters) {
+        total = counters.getTotal();
+        for (Map.Entry<Quest.QuestRarity, Integer> entry : counters.getByRarity().entrySet()) {
+            byRarity[entry.getKey().ordinal()] = entry.getValue();
+        }
+        for (Map.Entry<Quest.QuestType, Integer> entry : counters.getByType().entrySet()) {
+            byType[entry.getKey().ordinal()] = entry.getValue();
+        }
+        for (Map.Entry<Integer, Integer> entry : counters.getByDay().entrySet()) {
+            addDay(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Copie figée des compteurs pour la sauvegarde
+     */
+    public PlayerDataSnapshot.Counters toSnapshot() {
+        Map<Quest.QuestRarity, Integer> rarities = new EnumMap<>(Quest.QuestRarity.class);
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            if (byRarity[rarity.ordinal()] > 0) {
+                rarities.put(rarity, byRarity[rarity.ordinal()]);
+            }
+        }
+        Map<Quest.QuestType, Integer> types = new EnumMap<>(Quest.QuestType.class);
+        for (Quest.QuestType type : Quest.QuestType.values()) {
+            if (byType[type.ordinal()] > 0) {
+                types.put(type, byType[type.ordinal()]);
+            }
+        }
+        Map<Integer, Integer> dayTotals = new HashMap<>();
+        for (int slot = 0; slot < TRACKED_DAYS; slot++) {
+            if (days[slot] != Integer.MIN_VALUE && dayCounts[slot] > 0) {
+                dayTotals.put(days[slot], dayCounts[slot]);
+            }
+        }
+        return new PlayerDataSnapshot.Counters(total, rarities, types, dayTotals);
+    }
+}
@@ -21,6 +21,9 @@ public class ConfigManager {
     private final Map<Quest.QuestRarity, Integer> maxActiveQuests;
     private final Map<Quest.QuestRarity, Double> rewardsMultiplier;
 
+    // Paramètres compilés pour les événements, remplacés en bloc à chaque chargement
+    private volatile PluginSettings settings;
+
     // Fichiers de configuration
     private File configFile;
     private File messagesFile;
@@ -49,9 +52,25 @@ public class ConfigManager {
         // Chargement des configurations de quêtes par rareté
         loadQuestConfigs();
 
+        settings = PluginSettings.compile(config, plugin.getLogger());
+
         plugin.getLogger().info("Toutes les configurations ont été chargées avec succès!");
     }
 
+    /**
+     * Paramètres compilés de config.yml (mondes, debug, sons)
+     */
+    public PluginSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Recompile les paramètres (un monde de la liste vient d'être chargé)
+     */
+    public void refreshSettings() {
+        settings = PluginSettings.compile(config, plugin.getLogger());
+    }
+
     /**
      * Crée les dossiers nécessaires
      */
@@ -0,0 +1,38 @@
+package org.simpledailyquests.managers;
+
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+
+/**
+ * Son de config.yml résolu au chargement : son du jeu, ou clé jouée telle quelle
+ * (son d'un pack de ressources, absent du registre du serveur).
+ */
+public final class ConfiguredSound {
+
+    private final Sound sound;
+    private final String key;
+
+    private ConfiguredSound(Sound sound, String key) {
+        this.sound = sound;
+        this.key = key;
+    }
+
+    public static ConfiguredSound of(Sound sound) {
+        return new ConfiguredSound(sound, null);
+    }
+
+    public static ConfiguredSound ofKey(String key) {
+        return new ConfiguredSound(null, key);
+    }
+
+    /**
+     * Joue le son à la position du joueur
+     */
+    public void play(Player player, float volume, float pitch) {
+        if (sound != null) {
+            player.playSound(player.getLocation(), sound, volume, pitch);
+        } else {
+            player.playSound(player.getLocation(), key, volume, pitch);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.simpledailyquests.managers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Cache borné des données joueurs : les joueurs hors ligne sont évincés
+ * après une période d'inactivité ou lorsque la taille maximale est dépassée (moins récemment utilisés d'abord).
+ * Les joueurs en ligne ne sont jamais évincés.
+ * Les cibles des quêtes en cache sont déclarées au filtre global {@link QuestInterest}.
+ */
+public class PlayerDataCache {
+
+    private final Map<UUID, Entry> entries;
+    private final int maxSize;
+    private final long idleMillis;
+    private final QuestInterest interest;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public PlayerDataCache(int maxSize, long idleMillis, QuestInterest interest) {
+        // Concurrent uniquement pour contains() depuis la pré-connexion ; le reste se fait sur le thread principal
+        this.entries = new ConcurrentHashMap<>();
+        this.maxSize = Math.max(1, maxSize);
+        this.idleMillis = Math.max(0L, idleMillis);
+        this.interest = interest;
+    }
+
+    /**
+     * Obtient les données d'un joueur et met à jour son dernier accès (compte un succès ou un échec)
+     */
+    public PlayerQuestData get(UUID playerUUID) {
+        Entry entry = entries.get(playerUUID);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.data;
+    }
+
+    /**
+     * Obtient les données d'un joueur sans toucher aux statistiques ni au dernier accès
+     */
+    public PlayerQuestData peek(UUID playerUUID) {
+        Entry entry = entries.get(playerUUID);
+        return entry != null ? entry.data : null;
+    }
+
+    /**
+     * Vérifie si un joueur est en cache (utilisable hors du thread principal)
+     */
+    public boolean contains(UUID playerUUID) {
+        return entries.containsKey(playerUUID);
+    }
+
+    public void put(UUID playerUUID, PlayerQuestData data) {
+        Entry previous = entries.put(playerUUID, new Entry(data, System.currentTimeMillis()));
+        if (previous != null && previous.data != data) {
+            previous.data.detachInterest();
+        }
+        data.attachInterest(interest);
+    }
+
+    public void remove(UUID playerUUID) {
+        Entry removed = entries.remove(playerUUID);
+        if (removed != null) {
+            removed.data.detachInterest();
+        }
+    }
+
+    /**
+     * Repousse l'éviction d'un joueur (par exemple à sa déconnexion)
+     */
+    public void touch(UUID playerUUID) {
+        Entry entry = entries.get(playerUUID);
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Vide le cache (restauration d'une sauvegarde)
+     */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            entry.data.detachInterest();
+        }
+        entries.clear();
+    }
+
+    public Collection<PlayerQuestData> values() {
+        List<PlayerQuestData> values = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            values.add(entry.data);
+        }
+        return values;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Évince les joueurs inactifs puis, si les joueurs évinçables dépassent la taille maximale, les moins récemment utilisés.
+     * Chaque joueur évincé est transmis à {@code writeBack} avant d'être retiré.
+     */
+    public int evict(Predicate<UUID> pinned, Consumer<PlayerQuestData> writeBack) {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<UUID, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<UUID, Entry> entry : entries.entrySet()) {
+            if (!pinned.test(entry.getKey())) {
+                candidates.add(entry);
+            }
+        }
+
+        // La taille maximale ne compte que les joueurs évinçables (hors joueurs en ligne)
+        int overflow = candidates.size() - maxSize;
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+
+        int evicted = 0;
+        for (Map.Entry<UUID, Entry> candidate : candidates) {
+            boolean idle = now - candidate.getValue().lastAccess >= idleMillis;
+            if (!idle && evicted >= overflow) {
+                break; // Liste triée : les suivants sont plus récents
+            }
+            writeBack.accept(candidate.getValue().data);
+            entries.remove(candidate.getKey());
+            candidate.getValue().data.detachInterest();
+            evicted++;
+        }
+
+        evictionCount += evicted;
+        return evicted;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static final class Entry {
+        private final PlayerQuestData data;
+        private volatile long lastAccess;
+
+        private Entry(PlayerQuestData data, long lastAccess) {
+            this.data = data;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
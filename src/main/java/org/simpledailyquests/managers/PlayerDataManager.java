@@ -2,6 +2,21 @@ package org.simpledailyquests.managers;
 
 import org.simpledailyquests.SimpleDailyQuests;
 import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.BinaryPlayerDataStorage;
+import org.simpledailyquests.storage.HistoryArchive;
+import org.simpledailyquests.storage.LegacyYamlMigrator;
+import org.simpledailyquests.storage.PlayerDataBackups;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+import org.simpledailyquests.storage.PlayerDataStorage;
+import org.simpledailyquests.storage.PlayerDataWriter;
+import org.simpledailyquests.storage.PlayerLeases;
+import org.simpledailyquests.storage.QuestEventLog;
+import org.simpledailyquests.storage.QuestJournal;
+import org.simpledailyquests.storage.SharedPlayerDataStorage;
+import org.simpledailyquests.storage.SnapshotMerger;
+import org.simpledailyquests.storage.SqlitePlayerDataStorage;
+import org.simpledailyquests.storage.YamlPlayerDataStorage;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
@@ -9,256 +24,1098 @@ import org.bukkit.entity.Player;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PlayerDataManager {
 
+    private static final String LEGACY_FILE_NAME = "players-data.yml";
+    private static final String PLAYER_DATA_FOLDER = "playerdata";
+    private static final String JOURNAL_FOLDER = "journal";
+    private static final String BACKUP_FOLDER = "backups";
+    private static final String HISTORY_FOLDER = "history";
+    private static final String EVENTS_FOLDER = "events";
+
     private final SimpleDailyQuests plugin;
-    private File playerDataFile;
-    private FileConfiguration playerData;
-    private final Map<UUID, PlayerQuestData> playerCache;
+    private PlayerDataStorage storage;
+    private PlayerDataWriter writer;
+    private QuestJournal journal;
+    private QuestEventLog eventLog;
+    private PlayerDataBackups backups;
+    private PlayerLeases leases;
+
+    // Fenêtre chaude de l'historique des quêtes terminées
+    private long historyHotMillis = 7L * 24 * 60 * 60 * 1000;
+    private int historyMaxEntries = 100;
+    private PlayerDataCache playerCache;
+    private QuestInterest questInterest;
+
+    // Chargements asynchrones en cours ou terminés, pas encore installés dans le cache
+    private final Map<UUID, CompletableFuture<PlayerDataSnapshot>> pendingLoads;
+    private ExecutorService loader;
+    private final AtomicBoolean migrationRunning = new AtomicBoolean();
+    private final RetentionJob retentionJob;
 
     public PlayerDataManager(SimpleDailyQuests plugin) {
         this.plugin = plugin;
-        this.playerCache = new HashMap<>();
+        this.questInterest = new QuestInterest();
+        this.playerCache = new PlayerDataCache(500, 15L * 60 * 1000, questInterest);
+        this.pendingLoads = new ConcurrentHashMap<>();
+        this.retentionJob = new RetentionJob(plugin, this);
     }
 
     /**
-     * Charge les données des joueurs depuis le fichier
+     * Ouvre le stockage configuré. Les joueurs sont ensuite chargés à la demande (connexion ou premier accès).
      */
     public void loadPlayerData() {
-        playerDataFile = new File(plugin.getDataFolder(), "players-data.yml");
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        long phaseStart = System.nanoTime();
 
-        if (!playerDataFile.exists()) {
-            try {
-                playerDataFile.createNewFile();
-                plugin.getLogger().info("Fichier players-data.yml créé.");
-            } catch (IOException e) {
-                plugin.getLogger().severe("Erreur lors de la création du fichier players-data.yml: " + e.getMessage());
-                return;
+        storage = createStorage(config.getString("storage.type", "yaml"));
+        try {
+            storage.init();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Erreur lors de l'ouverture du stockage " + storage.getName() + ": " + e.getMessage());
+            storage = null;
+            return;
+        }
+        plugin.getLogger().info("Stockage des données joueurs: " + storage.getName());
+
+        questInterest = new QuestInterest();
+        playerCache = new PlayerDataCache(config.getInt("storage.cache.max-size", 500),
+                config.getLong("storage.cache.idle-minutes", 15) * 60 * 1000, questInterest);
+
+        historyHotMillis = config.getLong("storage.history.hot-days", 7) * 24 * 60 * 60 * 1000;
+        historyMaxEntries = config.getInt("storage.history.hot-max-entries", 100);
+
+        writer = new PlayerDataWriter(plugin.getLogger(), storage,
+                new HistoryArchive(plugin.getLogger(), getHistoryFolder()),
+                config.getLong("storage.write-behind.flush-interval-ms", 500),
+                config.getInt("storage.write-behind.max-writes-per-flush", 20),
+                this::onSnapshotsWritten,
+                this::onSnapshotsMerged);
+
+        backups = new PlayerDataBackups(plugin.getLogger(), new File(plugin.getDataFolder(), BACKUP_FOLDER),
+                config.getInt("storage.backups.keep", 10));
+
+        if (storage.isShared()) {
+            String serverId = config.getString("storage.shared.server-id", "");
+            if (serverId == null || serverId.isEmpty()) {
+                serverId = "serveur-" + UUID.randomUUID().toString().substring(0, 8);
             }
+            leases = new PlayerLeases(plugin.getLogger(), storage, serverId,
+                    config.getLong("storage.shared.lease-seconds", 30) * 1000,
+                    config.getLong("storage.shared.handoff-timeout-ms", 5000));
+            leases.releaseAll(); // Baux laissés par un arrêt brutal de ce serveur
         }
 
-        playerData = YamlConfiguration.loadConfiguration(playerDataFile);
-        loadPlayerCache();
+        int threads = config.getInt("storage.startup.threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        }
+        loader = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "SimpleDailyQuests-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long openMillis = elapsedMillis(phaseStart);
+
+        // Migration unique de l'ancien fichier monolithique
+        phaseStart = System.nanoTime();
+        migrateLegacyFile();
+        long migrationMillis = elapsedMillis(phaseStart);
+
+        // Rejoue les modifications journalisées depuis la dernière sauvegarde (arrêt brutal)
+        phaseStart = System.nanoTime();
+        journal = new QuestJournal(plugin.getLogger(), new File(plugin.getDataFolder(), JOURNAL_FOLDER),
+                config.getLong("storage.journal.sync-interval-ms", 1000));
+        replayJournal();
+        openJournal(config.getBoolean("storage.journal.enabled", true));
+        long replayMillis = elapsedMillis(phaseStart);
+        openEventLog(config);
+
+        plugin.getLogger().info("Stockage prêt en " + (openMillis + migrationMillis + replayMillis) + " ms (ouverture "
+                + openMillis + " ms, migration " + migrationMillis + " ms, journal " + replayMillis + " ms, "
+                + threads + " thread(s) de chargement).");
+
+        // Joueurs déjà connectés (rechargement du plugin), chargés en parallèle hors du thread principal
+        List<CompletableFuture<PlayerDataSnapshot>> preloads = new ArrayList<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            preloads.add(requestLoad(player.getUniqueId()));
+        }
+        if (!preloads.isEmpty()) {
+            long preloadStart = System.nanoTime();
+            CompletableFuture.allOf(preloads.toArray(new CompletableFuture[0])).whenComplete((ignored, error) ->
+                    plugin.getLogger().info(preloads.size() + " joueur(s) connecté(s) préchargé(s) en "
+                            + elapsedMillis(preloadStart) + " ms."));
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
     }
 
     /**
-     * Charge les données des joueurs en cache
+     * Exécute des tâches sur le pool de chargement et attend leurs résultats (dans l'ordre des tâches)
      */
-    private void loadPlayerCache() {
-        if (!playerData.contains("players")) {
-            return;
+    private <T> List<T> runParallel(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : loader.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chargement interrompu", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
         }
+        return results;
+    }
 
-        for (String uuidString : playerData.getConfigurationSection("players").getKeys(false)) {
-            UUID playerUUID = UUID.fromString(uuidString);
-            PlayerQuestData questData = loadPlayerQuestData(playerUUID);
-            playerCache.put(playerUUID, questData);
+    /**
+     * Découpe une liste en au plus {@code parts} morceaux contigus
+     */
+    private static <T> List<List<T>> partition(List<T> items, int parts) {
+        List<List<T>> chunks = new ArrayList<>();
+        int chunkSize = Math.max(1, (items.size() + parts - 1) / parts);
+        for (int start = 0; start < items.size(); start += chunkSize) {
+            chunks.add(items.subList(start, Math.min(items.size(), start + chunkSize)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Crée le backend de stockage correspondant au type configuré
+     */
+    private PlayerDataStorage createStorage(String type) {
+        String storageType = type.toLowerCase();
+        if (!storageType.equals("yaml")) {
+            File yamlFolder = new File(plugin.getDataFolder(), PLAYER_DATA_FOLDER);
+            String[] yamlFiles = yamlFolder.list((dir, name) -> name.endsWith(".yml"));
+            if (yamlFiles != null && yamlFiles.length > 0) {
+                plugin.getLogger().warning("Le dossier " + PLAYER_DATA_FOLDER + "/ contient des données YAML qui ne sont pas lues par le stockage " + storageType + ".");
+            }
         }
 
-        plugin.getLogger().info("Données de " + playerCache.size() + " joueur(s) chargées.");
+        switch (storageType) {
+            case "sqlite":
+                String fileName = plugin.getConfigManager().getConfig().getString("storage.sqlite.file", "players.db");
+                return new SqlitePlayerDataStorage(plugin.getLogger(), new File(plugin.getDataFolder(), fileName));
+            case "shared":
+                return new SharedPlayerDataStorage(plugin.getLogger(), getSharedFile(),
+                        plugin.getConfigManager().getConfig().getLong("storage.shared.busy-timeout-ms", 5000));
+            case "binary":
+                return new BinaryPlayerDataStorage(plugin.getLogger(), new File(plugin.getDataFolder(), PLAYER_DATA_FOLDER));
+            case "yaml":
+                return new YamlPlayerDataStorage(plugin.getLogger(), new File(plugin.getDataFolder(), PLAYER_DATA_FOLDER));
+            default:
+                plugin.getLogger().warning("Type de stockage inconnu: " + type + ", utilisation de yaml");
+                return new YamlPlayerDataStorage(plugin.getLogger(), new File(plugin.getDataFolder(), PLAYER_DATA_FOLDER));
+        }
     }
 
     /**
-     * Charge les données de quête d'un joueur spécifique
+     * Base partagée : chemin absolu vers un dossier commun à tous les serveurs (ou relatif au dossier du plugin)
      */
-    private PlayerQuestData loadPlayerQuestData(UUID playerUUID) {
-        String path = "players." + playerUUID.toString();
-        PlayerQuestData questData = new PlayerQuestData(playerUUID);
+    private File getSharedFile() {
+        File sharedFile = new File(plugin.getConfigManager().getConfig().getString("storage.shared.file", "players-shared.db"));
+        return sharedFile.isAbsolute() ? sharedFile : new File(plugin.getDataFolder(), sharedFile.getPath());
+    }
 
-        // Chargement du nom
-        questData.setPlayerName(playerData.getString(path + ".name", "Unknown"));
+    /**
+     * Dossier de l'archive des complétions : à côté de la base partagée, pour que tous les serveurs lisent
+     * l'historique complet d'un joueur (un seul serveur écrit un joueur à la fois, celui qui détient son bail)
+     */
+    private File getHistoryFolder() {
+        if (storage.isShared()) {
+            return new File(getSharedFile().getAbsoluteFile().getParentFile(), HISTORY_FOLDER);
+        }
+        return new File(plugin.getDataFolder(), HISTORY_FOLDER);
+    }
 
-        // Chargement des temps de dernière réinitialisation
-        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
-            String rarityName = rarity.name().toLowerCase();
-            long lastReset = playerData.getLong(path + ".last-reset." + rarityName, 0);
-            questData.setLastReset(rarity, lastReset);
+    /**
+     * Migre l'ancien players-data.yml vers le stockage configuré, puis le renomme
+     */
+    private void migrateLegacyFile() {
+        File legacyFile = new File(plugin.getDataFolder(), LEGACY_FILE_NAME);
+        if (!legacyFile.exists()) {
+            return;
         }
 
-        // Chargement des quêtes actives
-        loadActiveQuests(questData, path);
+        FileConfiguration legacyData = YamlConfiguration.loadConfiguration(legacyFile);
+        ConfigurationSection playersSection = legacyData.getConfigurationSection("players");
+        List<PlayerDataSnapshot> snapshots = new ArrayList<>();
 
-        // Chargement des quêtes terminées
-        loadCompletedQuests(questData, path);
+        try {
+            if (playersSection != null) {
+                // Conversion des sections en parallèle : l'arbre YAML n'est plus que lu à ce stade
+                List<Callable<List<PlayerDataSnapshot>>> conversions = new ArrayList<>();
+                for (List<String> keys : partition(new ArrayList<>(playersSection.getKeys(false)), 16)) {
+                    conversions.add(() -> {
+                        List<PlayerDataSnapshot> converted = new ArrayList<>(keys.size());
+                        for (String uuidString : keys) {
+                            ConfigurationSection section = playersSection.getConfigurationSection(uuidString);
+                            if (section == null) {
+                                continue;
+                            }
+                            try {
+                                converted.add(YamlPlayerDataStorage.read(UUID.fromString(uuidString), section, plugin.getLogger()));
+                            } catch (IllegalArgumentException e) {
+                                plugin.getLogger().warning("UUID invalide ignoré lors de la migration: " + uuidString);
+                            }
+                        }
+                        return converted;
+                    });
+                }
+                for (List<PlayerDataSnapshot> converted : runParallel(conversions)) {
+                    snapshots.addAll(converted);
+                }
+            }
 
-        return questData;
+            saveParallel(snapshots);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Erreur lors de la migration de " + LEGACY_FILE_NAME + ": " + e.getMessage()
+                    + " (la migration sera relancée au prochain démarrage)");
+            return;
+        }
+
+        File migratedFile = new File(plugin.getDataFolder(), LEGACY_FILE_NAME + ".migrated");
+        if (legacyFile.renameTo(migratedFile)) {
+            plugin.getLogger().info("Migration terminée: " + snapshots.size() + " joueur(s) déplacé(s) vers le stockage "
+                    + storage.getName() + " (" + LEGACY_FILE_NAME + " renommé en " + migratedFile.getName() + ").");
+        } else {
+            plugin.getLogger().severe("Impossible de renommer " + LEGACY_FILE_NAME + ", la migration sera relancée au prochain démarrage.");
+        }
     }
 
     /**
-     * Charge les quêtes actives d'un joueur
+     * Applique les segments de journal restants sur les snapshots stockés, puis les supprime
      */
-    private void loadActiveQuests(PlayerQuestData questData, String basePath) {
-        String activePath = basePath + ".active-quests";
+    private void replayJournal() {
+        List<QuestJournal.Record> records;
+        try {
+            records = journal.readExisting();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Erreur lors de la lecture du journal, segments mis de côté: " + e.getMessage());
+            journal.quarantineExisting();
+            return;
+        }
 
-        if (!playerData.contains(activePath)) {
+        if (records.isEmpty()) {
+            journal.deleteExisting();
             return;
         }
 
-        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
-            String rarityName = rarity.name().toLowerCase();
-            String rarityPath = activePath + "." + rarityName;
+        // Les événements d'un joueur ne dépendent que de lui : chaque joueur est rejoué sur le pool de chargement
+        Map<UUID, List<QuestJournal.Record>> recordsByPlayer = new LinkedHashMap<>();
+        for (QuestJournal.Record record : records) {
+            recordsByPlayer.computeIfAbsent(record.getPlayerUUID(), uuid -> new ArrayList<>()).add(record);
+        }
 
-            if (!playerData.contains(rarityPath)) {
+        int deletedCount = 0;
+        try {
+            List<Callable<PlayerDataSnapshot>> replays = new ArrayList<>();
+            for (Map.Entry<UUID, List<QuestJournal.Record>> entry : recordsByPlayer.entrySet()) {
+                replays.add(() -> replayPlayer(entry.getKey(), entry.getValue()));
+            }
+
+            List<PlayerDataSnapshot> snapshots = new ArrayList<>();
+            for (PlayerDataSnapshot snapshot : runParallel(replays)) {
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+            // Suppressions d'abord (une seule opération), puis les joueurs recréés ou modifiés
+            List<UUID> deleted = new ArrayList<>();
+            for (Map.Entry<UUID, List<QuestJournal.Record>> entry : recordsByPlayer.entrySet()) {
+                List<QuestJournal.Record> playerRecords = entry.getValue();
+                if (playerRecords.stream().anyMatch(record -> record.getType() == QuestJournal.RecordType.DELETE)) {
+                    deleted.add(entry.getKey());
+                }
+                if (playerRecords.get(playerRecords.size() - 1).getType() == QuestJournal.RecordType.DELETE) {
+                    deletedCount++;
+                }
+            }
+            storage.deleteBatch(deleted);
+            saveParallel(snapshots);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Erreur lors du rejeu du journal, segments mis de côté: " + e.getMessage());
+            journal.quarantineExisting();
+            return;
+        }
+
+        journal.deleteExisting();
+        plugin.getLogger().info(records.size() + " événement(s) du journal rejoué(s) pour "
+                + recordsByPlayer.size() + " joueur(s)" + (deletedCount > 0 ? " dont " + deletedCount + " supprimé(s)" : "") + ".");
+    }
+
+    /**
+     * Rejoue les événements d'un joueur sur ses données stockées.
+     * Renvoie le snapshot à écrire, ou null si le joueur a été supprimé en dernier.
+     */
+    private PlayerDataSnapshot replayPlayer(UUID playerUUID, List<QuestJournal.Record> playerRecords) throws IOException {
+        PlayerQuestData questData = null;
+        boolean deleted = false;
+        for (QuestJournal.Record record : playerRecords) {
+            if (record.getType() == QuestJournal.RecordType.DELETE) {
+                questData = null;
+                deleted = true;
                 continue;
             }
+            if (questData == null) {
+                PlayerDataSnapshot snapshot = deleted ? null : storage.load(playerUUID);
+                questData = snapshot != null ? toPlayerQuestData(snapshot) : new PlayerQuestData(playerUUID);
+            }
+            applyJournalRecord(questData, record);
+        }
+
+        return questData != null ? questData.createSnapshot() : null;
+    }
+
+    /**
+     * Écrit des snapshots en plusieurs lots simultanés sur le pool de chargement
+     */
+    private void saveParallel(List<PlayerDataSnapshot> snapshots) throws IOException {
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (List<PlayerDataSnapshot> batch : partition(snapshots, 16)) {
+            batches.add(() -> {
+                storage.saveBatch(batch);
+                return null;
+            });
+        }
+        runParallel(batches);
+    }
+
+    /**
+     * Applique un événement du journal (sans effet s'il est déjà reflété dans les données)
+     */
+    private void applyJournalRecord(PlayerQuestData questData, QuestJournal.Record record) {
+        Quest quest = record.getQuestId() != null ? questData.getActiveQuestById(record.getQuestId()) : null;
 
-            List<Map<?, ?>> questMaps = playerData.getMapList(rarityPath);
-            for (Map<?, ?> questMap : questMaps) {
-                Quest quest = mapToQuest(questMap, rarity);
+        switch (record.getType()) {
+            case PROGRESS:
+                if (quest != null && record.getProgress() > quest.getProgress()) {
+                    questData.addQuestProgress(quest, record.getProgress() - quest.getProgress());
+                }
+                break;
+            case ASSIGN:
+                if (quest == null) {
+                    questData.addActiveQuest(buildQuest(record.getQuestId(), record.getQuestType(), record.getRarity(),
+                            record.getTarget(), record.getRequired(), record.getProgress(), record.getTime()));
+                }
+                break;
+            case REMOVE:
+                if (quest != null) {
+                    questData.removeActiveQuest(quest);
+                }
+                break;
+            case CLAIM:
                 if (quest != null) {
-                    questData.addActiveQuest(quest);
+                    questData.removeActiveQuest(quest);
+                }
+                if (!questData.hasCompletedQuest(record.getQuestId(), record.getTime())) {
+                    questData.addCompletedQuest(record.getQuestId(), record.getTime(), record.getRarity(),
+                            quest != null ? quest.getType() : null);
+                }
+                break;
+            case COMPLETED:
+                if (!questData.hasCompletedQuest(record.getQuestId(), record.getTime())) {
+                    questData.addCompletedQuest(record.getQuestId(), record.getTime(), record.getRarity());
                 }
+                break;
+            case RESET:
+                if (record.getTime() > questData.getLastReset(record.getRarity())) {
+                    questData.setLastReset(record.getRarity(), record.getTime());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Ouvre un nouveau segment de journal (ou arrête le journal s'il est désactivé)
+     */
+    private void openJournal(boolean enabled) {
+        if (enabled) {
+            try {
+                journal.open();
+                return;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Impossible d'ouvrir le journal, progrès non journalisé: " + e.getMessage());
             }
         }
+        journal.close();
+        journal = null;
     }
 
     /**
-     * Charge les quêtes terminées d'un joueur
+     * Ouvre le journal d'événements pour les statistiques (désactivé par défaut)
      */
-    private void loadCompletedQuests(PlayerQuestData questData, String basePath) {
-        String completedPath = basePath + ".completed-quests";
+    private void openEventLog(FileConfiguration config) {
+        if (!config.getBoolean("events.enabled", false)) {
+            return;
+        }
+        eventLog = new QuestEventLog(plugin.getLogger(), new File(plugin.getDataFolder(), EVENTS_FOLDER),
+                config.getLong("events.segment-mb", 16) * 1024 * 1024, config.getLong("events.sync-interval-ms", 5000));
+        try {
+            eventLog.open();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossible d'ouvrir le journal d'événements: " + e.getMessage());
+            eventLog.close();
+            eventLog = null;
+        }
+    }
 
-        if (!playerData.contains(completedPath)) {
+    /**
+     * Lance le chargement asynchrone des données d'un joueur (sans effet s'il est déjà chargé ou en cours)
+     */
+    public CompletableFuture<PlayerDataSnapshot> requestLoad(UUID playerUUID) {
+        if (loader == null || (playerCache.contains(playerUUID) && !isShared())) {
+            // Rien à lire : getPlayerData utilisera le cache (ou relira le stockage s'il a été évincé entre-temps).
+            // Un stockage partagé est toujours relu : le joueur a pu jouer sur un autre serveur depuis.
+            return CompletableFuture.completedFuture(null);
+        }
+        return pendingLoads.computeIfAbsent(playerUUID,
+                uuid -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readSnapshot(uuid);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, loader));
+    }
+
+    /**
+     * Charge les données d'un joueur depuis le thread de pré-connexion (bloquant).
+     * Renvoie false si le stockage n'a pas pu être lu.
+     */
+    public boolean preloadPlayer(UUID playerUUID) {
+        if (leases != null) {
+            // Stockage partagé : l'ancien serveur du joueur doit avoir écrit ses dernières données
+            try {
+                leases.acquire(playerUUID);
+            } catch (IOException e) {
+                plugin.getLogger().severe("Erreur lors de la prise du bail de " + playerUUID + ": " + e.getMessage());
+                return false;
+            }
+            pendingLoads.remove(playerUUID); // Lecture éventuelle faite avant le bail
+        }
+
+        try {
+            requestLoad(playerUUID).join();
+            return true;
+        } catch (CompletionException e) {
+            pendingLoads.remove(playerUUID);
+            plugin.getLogger().severe("Erreur lors du chargement des données de " + playerUUID + ": " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Futur complété sur le thread principal dès que les données du joueur sont en cache
+     */
+    public CompletableFuture<PlayerQuestData> whenLoaded(Player player) {
+        UUID playerUUID = player.getUniqueId();
+        if (isShared()) {
+            dropStaleCopy(playerUUID);
+        }
+        if (playerCache.contains(playerUUID)) {
+            return CompletableFuture.completedFuture(getPlayerData(player));
+        }
+
+        CompletableFuture<PlayerQuestData> result = new CompletableFuture<>();
+        requestLoad(playerUUID).whenComplete((snapshot, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (player.isOnline()) {
+                    result.complete(getPlayerData(player));
+                } else {
+                    pendingLoads.remove(playerUUID);
+                    result.cancel(false);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Futur complété sur le thread principal avec les données d'un joueur, même hors ligne (lecture en arrière-plan),
+     * ou null si le stockage ne connaît pas ce joueur
+     */
+    public CompletableFuture<PlayerQuestData> whenLoaded(UUID playerUUID) {
+        // Stockage partagé : un joueur hors ligne a pu jouer ailleurs, sa copie en cache est relue
+        if (playerCache.contains(playerUUID) && (!isShared() || plugin.getServer().getPlayer(playerUUID) != null)) {
+            return CompletableFuture.completedFuture(getPlayerData(playerUUID));
+        }
+
+        CompletableFuture<PlayerQuestData> result = new CompletableFuture<>();
+        requestLoad(playerUUID).whenComplete((snapshot, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                pendingLoads.remove(playerUUID);
+                result.completeExceptionally(error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            if (snapshot == null && !playerCache.contains(playerUUID)) {
+                pendingLoads.remove(playerUUID);
+                result.complete(null); // Jamais enregistré : rien à mettre en cache
+                return;
+            }
+            if (isShared()) {
+                dropStaleCopy(playerUUID);
+            }
+            result.complete(getPlayerData(playerUUID));
+        }));
+        return result;
+    }
+
+    /**
+     * Stockage partagé : à la connexion, une copie en cache sans modification locale est remplacée
+     * par la lecture faite pendant la pré-connexion (le joueur vient peut-être d'un autre serveur).
+     * Une copie modifiée est gardée : la fusion se fera à son écriture.
+     */
+    private void dropStaleCopy(UUID playerUUID) {
+        CompletableFuture<PlayerDataSnapshot> load = pendingLoads.get(playerUUID);
+        PlayerQuestData cached = playerCache.peek(playerUUID);
+        if (cached == null || load == null || !load.isDone()) {
             return;
         }
+        if (cached.isDirty() || load.isCompletedExceptionally()) {
+            pendingLoads.remove(playerUUID);
+        } else {
+            playerCache.remove(playerUUID);
+        }
+    }
 
-        List<Map<?, ?>> completedMaps = playerData.getMapList(completedPath);
-        for (Map<?, ?> completedMap : completedMaps) {
-            String questId = (String) completedMap.get("quest-id");
-            long completionTime = ((Number) completedMap.get("completion-time")).longValue();
-            String rarityString = (String) completedMap.get("rarity");
+    /**
+     * Indique si les données joueurs sont partagées avec d'autres serveurs
+     */
+    public boolean isShared() {
+        return storage != null && storage.isShared();
+    }
 
-            Quest.QuestRarity rarity = Quest.QuestRarity.valueOf(rarityString.toUpperCase());
-            questData.addCompletedQuest(questId, completionTime, rarity);
+    /**
+     * Lit le snapshot le plus récent d'un joueur : d'abord la file d'écriture, puis le stockage
+     */
+    private PlayerDataSnapshot readSnapshot(UUID playerUUID) throws IOException {
+        PlayerDataSnapshot pending = writer != null ? writer.findPending(playerUUID) : null;
+        if (pending != null) {
+            return pending;
         }
+        if (writer != null && writer.isDeleted(playerUUID)) {
+            return null; // Suppression pas encore écrite
+        }
+        return storage.load(playerUUID);
     }
 
     /**
-     * Convertit une map en objet Quest
+     * Installe un joueur dans le cache à partir de son chargement asynchrone, ou le charge immédiatement
      */
-    private Quest mapToQuest(Map<?, ?> questMap, Quest.QuestRarity rarity) {
+    private PlayerQuestData loadIntoCache(UUID playerUUID) {
+        PlayerDataSnapshot snapshot = null;
+        CompletableFuture<PlayerDataSnapshot> load = pendingLoads.remove(playerUUID);
+
         try {
-            String questId = (String) questMap.get("quest-id");
-            String typeString = (String) questMap.get("type");
-            String target = (String) questMap.get("target");
-            int required = ((Number) questMap.get("required")).intValue();
-            int progress = ((Number) questMap.get("progress")).intValue();
-            long assignedTime = ((Number) questMap.get("assigned-time")).longValue();
+            if (load != null && load.isDone() && !load.isCompletedExceptionally()) {
+                snapshot = load.join();
+            } else if (storage != null) {
+                // Premier accès sans pré-chargement (joueur hors ligne, commande admin...)
+                snapshot = readSnapshot(playerUUID);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Erreur lors du chargement des données de " + playerUUID + ": " + e.getMessage());
+        }
+
+        PlayerQuestData questData = snapshot != null ? toPlayerQuestData(snapshot) : new PlayerQuestData(playerUUID);
+        questData.compactHistory(System.currentTimeMillis(), historyHotMillis, historyMaxEntries);
+        questData.attachJournal(journal);
+        playerCache.put(playerUUID, questData);
+        return questData;
+    }
+
+    /**
+     * Place les modifications d'un joueur déconnecté dans la file d'écriture.
+     * Ses données restent en cache jusqu'à leur éviction (reconnexion rapide sans relecture).
+     */
+    public void handlePlayerLeave(UUID playerUUID) {
+        markSeen(playerUUID);
+        savePlayerData(playerUUID);
+        playerCache.touch(playerUUID);
+        pendingLoads.remove(playerUUID);
+
+        if (isShared()) {
+            // Écrit tout de suite et rend le bail pour le serveur suivant, puis oublie la copie locale.
+            // En cas d'échec, le bail n'est pas rendu : il expirera.
+            long quitNanos = System.nanoTime();
+            long token = leases != null ? leases.tokenOf(playerUUID) : 0L;
+            writer.flushThen(playerUUID, target -> {
+                if (leases != null) {
+                    leases.release(playerUUID, token, quitNanos);
+                }
+                return null;
+            }).whenComplete((ignored, error) -> runOnMainThread(() -> forgetOfflinePlayer(playerUUID)));
+        }
+    }
+
+    /**
+     * Retire du cache un joueur déconnecté dont toutes les modifications sont écrites (stockage partagé)
+     */
+    private void forgetOfflinePlayer(UUID playerUUID) {
+        PlayerQuestData cached = playerCache.peek(playerUUID);
+        if (cached == null || cached.isDirty() || plugin.getServer().getPlayer(playerUUID) != null
+                || (writer != null && writer.findPending(playerUUID) != null)) {
+            return; // Éviction normale plus tard
+        }
+        playerCache.remove(playerUUID);
+    }
+
+    private void markSeen(UUID playerUUID) {
+        PlayerQuestData questData = playerCache.peek(playerUUID);
+        if (questData != null) {
+            questData.setLastSeen(System.currentTimeMillis());
+        }
+    }
 
-            Quest.QuestType type = Quest.QuestType.valueOf(typeString.toUpperCase());
+    /**
+     * Vérifie qu'un joueur jugé inactif peut être supprimé (thread principal) :
+     * ni connecté, ni en cours de chargement, ni revenu depuis la date limite
+     */
+    public boolean canPurge(UUID playerUUID, long cutoff) {
+        if (plugin.getServer().getPlayer(playerUUID) != null || pendingLoads.containsKey(playerUUID)) {
+            return false;
+        }
+        PlayerQuestData cached = playerCache.peek(playerUUID);
+        return cached == null || cached.getLastSeen() < cutoff;
+    }
 
-            // Récupération des récompenses depuis la configuration
-            List<String> rewards = plugin.getConfigManager().getQuestConfig(rarity).getStringList("rewards");
+    /**
+     * Évince du cache les joueurs hors ligne inactifs ou en excès, après avoir mis en file leurs modifications
+     */
+    public int evictPlayers() {
+        return playerCache.evict(
+                playerUUID -> plugin.getServer().getPlayer(playerUUID) != null,
+                questData -> {
+                    if (writer != null && questData.isDirty()) {
+                        writer.enqueue(snapshotOf(questData));
+                    }
+                });
+    }
 
-            Quest quest = new Quest(questId, type, rarity, target, required, rewards);
-            quest.setProgress(progress);
-            quest.setAssignedTime(assignedTime);
+    /**
+     * Obtient le cache des données joueurs (statistiques)
+     */
+    public PlayerDataCache getCache() {
+        return playerCache;
+    }
 
-            return quest;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Erreur lors du chargement d'une quête: " + e.getMessage());
-            return null;
+    /**
+     * Reconstruit les données de quête d'un joueur à partir d'un snapshot du stockage
+     */
+    private PlayerQuestData toPlayerQuestData(PlayerDataSnapshot snapshot) {
+        PlayerQuestData questData = new PlayerQuestData(snapshot.getPlayerUUID());
+        questData.setPlayerName(snapshot.getPlayerName());
+        questData.setLastSeen(snapshot.getLastSeen());
+
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            questData.setLastReset(rarity, snapshot.getLastReset(rarity));
+        }
+
+        for (PlayerDataSnapshot.ActiveQuest activeQuest : snapshot.getActiveQuests()) {
+            questData.addActiveQuest(buildQuest(activeQuest.getQuestId(), activeQuest.getType(), activeQuest.getRarity(),
+                    activeQuest.getTarget(), activeQuest.getRequired(), activeQuest.getProgress(), activeQuest.getAssignedTime()));
         }
+
+        for (PlayerDataSnapshot.CompletedEntry completed : snapshot.getCompletedQuests()) {
+            questData.getHistory().add(completed.getQuestId(), completed.getCompletionTime(), completed.getRarity());
+        }
+        for (PlayerDataSnapshot.DailyRollup rollup : snapshot.getRollups()) {
+            questData.getHistory().addRollup(rollup.getDay(), rollup.getRarity(), rollup.getCount());
+        }
+        if (snapshot.getCounters() != null) {
+            questData.getCounters().restore(snapshot.getCounters());
+        } else {
+            questData.rebuildCounters();
+        }
+
+        questData.restoreVersion(snapshot.getVersion());
+        questData.setRevision(snapshot.getRevision());
+        return questData;
     }
 
     /**
-     * Sauvegarde toutes les données des joueurs
+     * Recrée une quête active stockée, avec les récompenses actuelles de sa rareté
      */
-    public void savePlayerData() {
-        if (playerData == null) return;
+    private Quest buildQuest(String questId, Quest.QuestType type, Quest.QuestRarity rarity, String target,
+                             int required, int progress, long assignedTime) {
+        // Récupération des récompenses depuis la configuration
+        FileConfiguration questConfig = plugin.getConfigManager().getQuestConfig(rarity);
+        List<String> rewards = questConfig != null ? questConfig.getStringList("rewards") : new ArrayList<>();
 
-        // Effacement des données existantes
-        playerData.set("players", null);
+        Quest quest = new Quest(questId, type, rarity, target, required, rewards);
+        quest.setProgress(progress);
+        quest.setAssignedTime(assignedTime);
+        return quest;
+    }
 
-        // Sauvegarde de chaque joueur
+    /**
+     * Place les joueurs modifiés dans la file d'écriture différée.
+     * Les snapshots sont capturés ici (thread principal), l'écriture se fait en arrière-plan.
+     */
+    private int queueDirtyPlayers() {
+        int queued = 0;
         for (PlayerQuestData questData : playerCache.values()) {
-            savePlayerQuestData(questData);
+            if (questData.isDirty()) {
+                writer.enqueue(snapshotOf(questData));
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Résume l'historique hors fenêtre chaude puis capture le snapshot à écrire
+     */
+    private PlayerDataSnapshot snapshotOf(PlayerQuestData questData) {
+        questData.compactHistory(System.currentTimeMillis(), historyHotMillis, historyMaxEntries);
+        return questData.createSnapshot();
+    }
+
+    /**
+     * Migre en flux un ancien fichier YAML vers un autre type de stockage (à appeler hors du thread principal).
+     * Une migration interrompue reprend à la dernière position vérifiée.
+     */
+    public LegacyYamlMigrator.Result migrateYamlFile(File source, String type, int batchSize) throws IOException {
+        if (storage != null && storage.getName().equalsIgnoreCase(type)) {
+            throw new IOException("le stockage actif migre " + LEGACY_FILE_NAME + " automatiquement au démarrage");
+        }
+        if (!migrationRunning.compareAndSet(false, true)) {
+            throw new IOException("une migration est déjà en cours");
         }
 
+        PlayerDataStorage target = createStorage(type);
         try {
-            playerData.save(playerDataFile);
-            plugin.getLogger().info("Données des joueurs sauvegardées.");
-        } catch (IOException e) {
-            plugin.getLogger().severe("Erreur lors de la sauvegarde des données des joueurs: " + e.getMessage());
+            target.init();
+            LegacyYamlMigrator.Result result = new LegacyYamlMigrator(plugin.getLogger(), source, target,
+                    plugin.getDataFolder(), batchSize).run();
+            plugin.getLogger().info("Migration de " + source.getName() + " vers " + target.getName() + ": " + result.describe());
+            return result;
+        } finally {
+            target.close();
+            migrationRunning.set(false);
+        }
+    }
+
+    /**
+     * Lit les complétions enregistrées d'un joueur entre deux dates (hors thread principal) :
+     * le détail archivé, puis la plage demandée de la fenêtre chaude du stockage, sans charger tout le joueur
+     */
+    public List<PlayerDataSnapshot.CompletedEntry> readStoredHistory(UUID playerUUID, long from, long to) throws IOException {
+        PlayerDataWriter currentWriter = writer;
+        if (currentWriter == null) {
+            return Collections.emptyList();
+        }
+        List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>(currentWriter.getArchive().read(playerUUID, from, to));
+        List<PlayerDataSnapshot.CompletedEntry> stored;
+        try {
+            stored = currentWriter.submit(target -> target.loadCompletedQuests(playerUUID, from, to)).join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+        }
+
+        // Une complétion archivée reste dans le stockage jusqu'à la sauvegarde suivante
+        Set<String> keys = new HashSet<>();
+        for (PlayerDataSnapshot.CompletedEntry entry : entries) {
+            keys.add(entry.getQuestId() + "@" + entry.getCompletionTime());
         }
+        for (PlayerDataSnapshot.CompletedEntry entry : stored) {
+            if (keys.add(entry.getQuestId() + "@" + entry.getCompletionTime())) {
+                entries.add(entry);
+            }
+        }
+        return entries;
     }
 
     /**
-     * Sauvegarde les données d'un joueur spécifique
+     * Point de sauvegarde : ouvre un nouveau segment de journal, écrit tous les joueurs modifiés,
+     * puis supprime les segments dont les événements sont désormais couverts par le stockage.
+     * Le futur renvoie le nombre de joueurs écrits.
      */
-    private void savePlayerQuestData(PlayerQuestData questData) {
-        String path = "players." + questData.getPlayerUUID().toString();
+    private CompletableFuture<Integer> checkpoint() {
+        QuestJournal currentJournal = journal;
+        CompletableFuture<Long> rolled = currentJournal != null
+                ? currentJournal.roll()
+                : CompletableFuture.completedFuture(null);
+
+        queueDirtyPlayers();
+        return rolled.thenCombine(writer.flush(), (segment, written) -> {
+            if (segment != null) {
+                currentJournal.truncateBefore(segment);
+            }
+            return written;
+        });
+    }
 
-        playerData.set(path + ".name", questData.getPlayerName());
+    /**
+     * Sauvegarde immédiatement les données des joueurs modifiées depuis la dernière sauvegarde.
+     * Le futur renvoie le nombre de joueurs écrits, ou échoue si l'écriture n'a pas abouti.
+     */
+    public CompletableFuture<Integer> savePlayerData() {
+        if (writer == null) return CompletableFuture.completedFuture(0);
 
-        // Sauvegarde des temps de dernière réinitialisation
-        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
-            String rarityName = rarity.name().toLowerCase();
-            playerData.set(path + ".last-reset." + rarityName, questData.getLastReset(rarity));
+        return checkpoint().thenApply(written -> {
+            if (written > 0) {
+                plugin.getLogger().info("Données de " + written + " joueur(s) sauvegardées.");
+            }
+            return written;
+        });
+    }
+
+    /**
+     * Place les données d'un joueur dans la file d'écriture différée si elles ont été modifiées
+     */
+    public void savePlayerData(UUID playerUUID) {
+        if (writer == null) return;
+
+        PlayerQuestData questData = playerCache.peek(playerUUID);
+        if (questData != null && questData.isDirty()) {
+            writer.enqueue(snapshotOf(questData));
         }
+    }
 
-        // Sauvegarde des quêtes actives
-        saveActiveQuests(questData, path);
+    /**
+     * Crée une sauvegarde compressée du stockage en arrière-plan, après écriture des joueurs modifiés.
+     * Le futur renvoie l'archive créée.
+     */
+    public CompletableFuture<File> createBackup() {
+        if (writer == null) {
+            return CompletableFuture.failedFuture(new IOException("Stockage indisponible"));
+        }
 
-        // Sauvegarde des quêtes terminées
-        saveCompletedQuests(questData, path);
+        PlayerDataWriter currentWriter = writer;
+        File target = backups.nextBackupFile(storage.getName());
+        queueDirtyPlayers();
+        return currentWriter.flush()
+                .exceptionally(error -> 0) // La sauvegarde contient au moins les dernières données écrites
+                .thenCompose(written -> currentWriter.submit(currentStorage -> {
+                    currentStorage.backup(target);
+                    backups.rotate();
+                    return target;
+                }));
     }
 
     /**
-     * Sauvegarde les quêtes actives d'un joueur
+     * Remplace le stockage par une sauvegarde sans arrêter le serveur.
+     * Les données en mémoire sont abandonnées puis rechargées depuis la sauvegarde.
      */
-    private void saveActiveQuests(PlayerQuestData questData, String basePath) {
-        String activePath = basePath + ".active-quests";
+    public CompletableFuture<Void> restoreBackup(String name) {
+        if (writer == null) {
+            return CompletableFuture.failedFuture(new IOException("Stockage indisponible"));
+        }
+        if (isShared()) {
+            // Les autres serveurs gardent leurs baux et leurs copies en mémoire : ils écraseraient la sauvegarde
+            return CompletableFuture.failedFuture(new IOException(
+                    "Indisponible en stockage partagé ; arrêtez tous les serveurs et remplacez la base manuellement"));
+        }
 
-        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
-            String rarityName = rarity.name().toLowerCase();
-            List<Quest> activeQuests = questData.getActiveQuests(rarity);
+        File backup = backups.find(name);
+        if (backup == null) {
+            return CompletableFuture.failedFuture(new IOException("Sauvegarde introuvable: " + name));
+        }
+        if (!PlayerDataBackups.storageNameOf(backup).equals(storage.getName())) {
+            return CompletableFuture.failedFuture(new IOException("Sauvegarde d'un autre stockage ("
+                    + PlayerDataBackups.storageNameOf(backup) + ")"));
+        }
 
-            if (activeQuests.isEmpty()) {
-                playerData.set(activePath + "." + rarityName, null);
-                continue;
+        PlayerDataWriter currentWriter = writer;
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        // Écrit d'abord l'état actuel : en cas d'échec de la restauration, rien n'est perdu
+        checkpoint().whenComplete((written, saveError) -> runOnMainThread(() -> {
+            if (saveError != null) {
+                result.completeExceptionally(new IOException("Sauvegarde préalable impossible, restauration annulée"));
+                return;
             }
 
-            List<Map<String, Object>> questMaps = new ArrayList<>();
-            for (Quest quest : activeQuests) {
-                Map<String, Object> questMap = new HashMap<>();
-                questMap.put("quest-id", quest.getQuestId());
-                questMap.put("type", quest.getType().name());
-                questMap.put("target", quest.getTarget());
-                questMap.put("required", quest.getRequired());
-                questMap.put("progress", quest.getProgress());
-                questMap.put("assigned-time", quest.getAssignedTime());
-                questMaps.add(questMap);
+            currentWriter.pause();
+            playerCache.clear();
+            pendingLoads.clear();
+
+            currentWriter.submit(currentStorage -> {
+                currentStorage.restore(backup);
+                return null;
+            }).whenComplete((ignored, restoreError) -> runOnMainThread(() -> {
+                // Les données lues pendant la restauration sont obsolètes
+                playerCache.clear();
+                pendingLoads.clear();
+                currentWriter.resume();
+
+                if (restoreError != null) {
+                    plugin.getLogger().severe("Erreur lors de la restauration de " + backup.getName() + ": " + restoreError.getMessage());
+                    result.completeExceptionally(restoreError);
+                } else {
+                    // Les événements journalisés avant la restauration ne doivent pas être rejoués
+                    QuestJournal currentJournal = journal;
+                    if (currentJournal != null) {
+                        currentJournal.roll().thenAccept(currentJournal::truncateBefore);
+                    }
+                    plugin.getLogger().info("Sauvegarde " + backup.getName() + " restaurée.");
+                    result.complete(null);
+                }
+
+                for (Player player : plugin.getServer().getOnlinePlayers()) {
+                    requestLoad(player.getUniqueId());
+                }
+            }));
+        }));
+        return result;
+    }
+
+    /**
+     * Obtient les sauvegardes disponibles, de la plus récente à la plus ancienne
+     */
+    public List<File> listBackups() {
+        return backups != null ? backups.list() : Collections.emptyList();
+    }
+
+    private void runOnMainThread(Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * Obtient le backend de stockage actif
+     */
+    public PlayerDataStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Obtient le journal des modifications (null s'il est désactivé)
+     */
+    public QuestJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Obtient le filtre global des cibles recherchées par les joueurs en cache
+     */
+    public QuestInterest getQuestInterest() {
+        return questInterest;
+    }
+
+    /**
+     * Obtient le journal d'événements pour les statistiques (null s'il est désactivé)
+     */
+    public QuestEventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Obtient le thread d'écriture (statistiques de la file)
+     */
+    public PlayerDataWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Marque les joueurs comme sauvegardés une fois l'écriture terminée (retour sur le thread principal)
+     */
+    private void onSnapshotsWritten(List<PlayerDataSnapshot> written) {
+        if (written.isEmpty() || !plugin.isEnabled()) {
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (PlayerDataSnapshot snapshot : written) {
+                PlayerQuestData questData = playerCache.peek(snapshot.getPlayerUUID());
+                if (questData != null) {
+                    questData.markSaved(snapshot.getVersion());
+                }
             }
+        });
+    }
 
-            playerData.set(activePath + "." + rarityName, questMaps);
+    /**
+     * Remplace les joueurs en mémoire par leur fusion avec la version d'un autre serveur (retour sur le thread principal).
+     * Les modifications faites ici depuis le snapshot refusé sont fusionnées à leur tour.
+     */
+    private void onSnapshotsMerged(List<PlayerDataSnapshot> merged) {
+        if (!plugin.isEnabled()) {
+            return;
         }
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (PlayerDataSnapshot snapshot : merged) {
+                PlayerQuestData current = playerCache.peek(snapshot.getPlayerUUID());
+                if (current == null) {
+                    continue; // Relu depuis la file d'écriture au prochain accès
+                }
+
+                PlayerDataSnapshot combined = SnapshotMerger.merge(snapshotOf(current), snapshot);
+                PlayerQuestData questData = toPlayerQuestData(combined);
+                questData.restorePendingArchive(combined.getArchivedQuests());
+                questData.compactHistory(System.currentTimeMillis(), historyHotMillis, historyMaxEntries);
+                questData.attachJournal(journal);
+                questData.markDirty(); // Passe devant le snapshot fusionné en file
+                playerCache.put(snapshot.getPlayerUUID(), questData);
+            }
+        });
     }
 
     /**
-     * Sauvegarde les quêtes terminées d'un joueur
+     * Sauvegarde les dernières modifications et attend la fin des écritures (arrêt du plugin)
      */
-    private void saveCompletedQuests(PlayerQuestData questData, String basePath) {
-        String completedPath = basePath + ".completed-quests";
+    public void shutdown() {
+        if (writer == null) return;
+
+        loader.shutdownNow();
+        loader = null;
+
+        queueDirtyPlayers();
+        boolean written = writer.shutdown(30);
+        writer = null;
 
-        List<Map<String, Object>> completedMaps = new ArrayList<>();
-        for (PlayerQuestData.CompletedQuest completed : questData.getCompletedQuests()) {
-            Map<String, Object> completedMap = new HashMap<>();
-            completedMap.put("quest-id", completed.getQuestId());
-            completedMap.put("completion-time", completed.getCompletionTime());
-            completedMap.put("rarity", completed.getRarity().name());
-            completedMaps.add(completedMap);
+        if (leases != null) {
+            leases.releaseAll();
+            leases = null;
         }
 
-        playerData.set(completedPath, completedMaps);
+        // Tout est écrit : rien à rejouer au prochain démarrage. Sinon les segments restants
+        // sont rejoués (sans effet s'ils sont déjà écrits).
+        if (journal != null) {
+            journal.close();
+            if (written) {
+                journal.deleteExisting();
+            }
+            journal = null;
+        }
+        if (eventLog != null) {
+            eventLog.close();
+            eventLog = null;
+        }
+
+        storage.close();
+        storage = null;
     }
 
     /**
      * Obtient les données de quête d'un joueur
      */
     public PlayerQuestData getPlayerData(UUID playerUUID) {
-        return playerCache.computeIfAbsent(playerUUID, uuid -> new PlayerQuestData(uuid));
+        PlayerQuestData questData = playerCache.get(playerUUID);
+        return questData != null ? questData : loadIntoCache(playerUUID);
     }
 
     /**
@@ -271,22 +1128,130 @@ public class PlayerDataManager {
     }
 
     /**
-     * Supprime un joueur du cache et des données
+     * Supprime un joueur du cache et son fichier de données
      */
     public void removePlayerData(UUID playerUUID) {
-        playerCache.remove(playerUUID);
-        playerData.set("players." + playerUUID.toString(), null);
-        savePlayerData();
+        removePlayersData(List.of(playerUUID));
+    }
+
+    /**
+     * Supprime plusieurs joueurs du cache et du stockage, en une seule opération du stockage
+     */
+    public void removePlayersData(Collection<UUID> playerUUIDs) {
+        for (UUID playerUUID : playerUUIDs) {
+            playerCache.remove(playerUUID);
+            pendingLoads.remove(playerUUID);
+
+            if (journal != null) {
+                journal.logDelete(playerUUID);
+            }
+        }
+
+        // Passe par le thread d'écriture pour ne pas être écrasé par une écriture en attente
+        if (writer != null) {
+            writer.deleteBatch(playerUUIDs);
+        }
+    }
+
+    /**
+     * Éviction périodique des joueurs hors ligne du cache
+     */
+    public void startCacheEviction() {
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            int evicted = evictPlayers();
+            if (evicted > 0 && plugin.getConfigManager().getSettings().isDebugEnabled()) {
+                plugin.getLogger().info(evicted + " joueur(s) retiré(s) du cache.");
+            }
+        }, 20L * 30, 20L * 30); // Toutes les 30 secondes
+    }
+
+    /**
+     * Passages de rétention périodiques (si la politique est activée), le premier quelques minutes après le démarrage
+     */
+    public void startRetention() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        if (!config.getBoolean("storage.retention.enabled", false)) {
+            return;
+        }
+
+        long intervalTicks = 20L * 60 * 60 * Math.max(1, config.getLong("storage.retention.interval-hours", 24));
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> retentionJob.start(false, null),
+                20L * 60 * 5, intervalTicks);
+    }
+
+    /**
+     * Renouvelle régulièrement les baux des joueurs connectés (stockage partagé uniquement)
+     */
+    public void startLeaseRenewal() {
+        if (leases == null) {
+            return;
+        }
+
+        long intervalTicks = Math.max(20L, leases.getDurationMillis() / 3 / 50);
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            PlayerLeases currentLeases = leases;
+            if (writer == null || currentLeases == null) {
+                return;
+            }
+            List<UUID> online = new ArrayList<>();
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                online.add(player.getUniqueId());
+            }
+            if (!online.isEmpty()) {
+                writer.submit(target -> {
+                    currentLeases.renew(online);
+                    return null;
+                });
+            }
+        }, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Obtient les baux des joueurs (null hors stockage partagé)
+     */
+    public PlayerLeases getLeases() {
+        return leases;
+    }
+
+    /**
+     * Obtient la tâche de rétention des joueurs inactifs
+     */
+    public RetentionJob getRetentionJob() {
+        return retentionJob;
+    }
+
+    /**
+     * Sauvegardes compressées périodiques (désactivées si l'intervalle vaut 0)
+     */
+    public void startBackups() {
+        long intervalMinutes = plugin.getConfigManager().getConfig().getLong("storage.backups.interval-minutes", 360);
+        if (intervalMinutes <= 0) {
+            return;
+        }
+
+        long intervalTicks = 20L * 60 * intervalMinutes;
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            if (writer == null) {
+                return;
+            }
+            createBackup().whenComplete((backup, error) -> {
+                if (error != null) {
+                    plugin.getLogger().severe("Erreur lors de la sauvegarde automatique: " + error.getMessage());
+                } else {
+                    plugin.getLogger().info("Sauvegarde créée: " + backup.getName());
+                }
+            });
+        }, intervalTicks, intervalTicks);
     }
 
     /**
-     * Sauvegarde automatique périodique
+     * Sauvegarde automatique périodique : snapshot sur le thread principal, écriture en arrière-plan
      */
     public void startAutoSave() {
-        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            if (!playerCache.isEmpty()) {
-                savePlayerData();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            if (writer != null) {
+                checkpoint(); // Les erreurs d'écriture sont journalisées par le thread d'écriture
             }
         }, 20L * 60 * 5, 20L * 60 * 5); // Sauvegarde toutes les 5 minutes
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,50 @@
 package org.simpledailyquests.managers;
 
 import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+import org.simpledailyquests.storage.QuestJournal;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class PlayerQuestData {
 
     private final UUID playerUUID;
     private String playerName;
     private final Map<Quest.QuestRarity, List<Quest>> activeQuests;
+
+    // Index des quêtes actives par type puis cible (recherche du progrès sans parcours ni allocation)
+    private final Map<Quest.QuestType, TargetIndex> questIndex;
     private final Map<Quest.QuestRarity, Long> lastReset;
-    private final List<CompletedQuest> completedQuests;
+    private long lastSeen;
+    private final CompletedQuestHistory history;
+    private final CompletionCounters counters;
+
+    // Complétions sorties de la fenêtre chaude, à archiver avec le prochain snapshot
+    private final List<PlayerDataSnapshot.CompletedEntry> pendingArchive;
+
+    // Suivi des modifications pour les sauvegardes incrémentales
+    private long version;
+    private long savedVersion;
+
+    // Révision lue dans le stockage partagé (0 pour un stockage local)
+    private long revision;
+
+    // Journal des modifications (null pendant le chargement et le rejeu)
+    private QuestJournal journal;
+
+    // Filtre global des cibles recherchées (null hors du cache)
+    private QuestInterest interest;
 
     public PlayerQuestData(UUID playerUUID) {
         this.playerUUID = playerUUID;
         this.playerName = "Unknown";
         this.activeQuests = new HashMap<>();
+        this.questIndex = new EnumMap<>(Quest.QuestType.class);
         this.lastReset = new HashMap<>();
-        this.completedQuests = new ArrayList<>();
+        this.history = new CompletedQuestHistory();
+        this.counters = new CompletionCounters();
+        this.pendingArchive = new ArrayList<>();
 
         // Initialisation des listes de quêtes actives pour chaque rareté
         for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
@@ -33,6 +60,11 @@ public class PlayerQuestData {
         List<Quest> quests = activeQuests.get(quest.getRarity());
         if (quests != null && !quests.contains(quest)) {
             quests.add(quest);
+            indexQuest(quest);
+            markDirty();
+            if (journal != null) {
+                journal.logAssign(playerUUID, quest);
+            }
         }
     }
 
@@ -40,10 +72,19 @@ public class PlayerQuestData {
      * Supprime une quête active
      */
     public void removeActiveQuest(Quest quest) {
+        if (removeActiveQuestSilently(quest) && journal != null) {
+            journal.logRemove(playerUUID, quest.getQuestId());
+        }
+    }
+
+    private boolean removeActiveQuestSilently(Quest quest) {
         List<Quest> quests = activeQuests.get(quest.getRarity());
-        if (quests != null) {
-            quests.removeIf(q -> q.getQuestId().equals(quest.getQuestId()));
+        if (quests != null && quests.removeIf(q -> q.getQuestId().equals(quest.getQuestId()))) {
+            unindexQuest(quest);
+            markDirty();
+            return true;
         }
+        return false;
     }
 
     /**
@@ -103,38 +144,110 @@ public class PlayerQuestData {
      * Complète une quête et l'ajoute aux quêtes terminées
      */
     public void completeQuest(Quest quest) {
-        removeActiveQuest(quest);
-        addCompletedQuest(quest.getQuestId(), System.currentTimeMillis(), quest.getRarity());
+        long completionTime = System.currentTimeMillis();
+        removeActiveQuestSilently(quest);
+        history.add(quest.getQuestId(), completionTime, quest.getRarity());
+        counters.record(quest.getRarity(), quest.getType(), completionTime);
+        markDirty();
+        if (journal != null) {
+            journal.logClaim(playerUUID, quest.getQuestId(), completionTime, quest.getRarity());
+        }
     }
 
     /**
      * Ajoute une quête terminée
      */
     public void addCompletedQuest(String questId, long completionTime, Quest.QuestRarity rarity) {
-        completedQuests.add(new CompletedQuest(questId, completionTime, rarity));
+        addCompletedQuest(questId, completionTime, rarity, null);
+    }
+
+    /**
+     * Ajoute une quête terminée dont le type est connu (null sinon)
+     */
+    public void addCompletedQuest(String questId, long completionTime, Quest.QuestRarity rarity, Quest.QuestType type) {
+        history.add(questId, completionTime, rarity);
+        counters.record(rarity, type, completionTime);
+        markDirty();
+        if (journal != null) {
+            journal.logCompleted(playerUUID, questId, completionTime, rarity);
+        }
+    }
+
+    /**
+     * Vérifie si une complétion est déjà dans l'historique (rejeu du journal)
+     */
+    public boolean hasCompletedQuest(String questId, long completionTime) {
+        return history.contains(questId, completionTime);
     }
 
     /**
-     * Obtient toutes les quêtes terminées
+     * Obtient les quêtes terminées récemment (fenêtre chaude de l'historique)
      */
     public List<CompletedQuest> getCompletedQuests() {
-        return new ArrayList<>(completedQuests);
+        List<CompletedQuest> completed = new ArrayList<>(history.getHotSize());
+        for (PlayerDataSnapshot.CompletedEntry entry : history.getRecentEntries()) {
+            completed.add(new CompletedQuest(entry.getQuestId(), entry.getCompletionTime(), entry.getRarity()));
+        }
+        return completed;
     }
 
     /**
      * Obtient le nombre de quêtes terminées d'une rareté donnée
      */
     public int getCompletedQuestCount(Quest.QuestRarity rarity) {
-        return (int) completedQuests.stream()
-                .filter(cq -> cq.getRarity() == rarity)
-                .count();
+        return counters.getCount(rarity);
+    }
+
+    /**
+     * Obtient le nombre de quêtes terminées d'un type donné
+     */
+    public int getCompletedQuestCount(Quest.QuestType type) {
+        return counters.getCount(type);
     }
 
     /**
      * Obtient le nombre total de quêtes terminées
      */
     public int getTotalCompletedQuests() {
-        return completedQuests.size();
+        return counters.getTotal();
+    }
+
+    /**
+     * Obtient les compteurs de quêtes terminées
+     */
+    public CompletionCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Recalcule les compteurs à partir de l'historique (données enregistrées sans compteurs).
+     * Le type des complétions passées n'étant pas conservé, seuls les compteurs par type repartent de zéro.
+     */
+    public void rebuildCounters() {
+        for (PlayerDataSnapshot.CompletedEntry entry : history.getRecentEntries()) {
+            counters.record(entry.getRarity(), null, entry.getCompletionTime());
+        }
+        for (PlayerDataSnapshot.DailyRollup rollup : history.getRollups()) {
+            counters.add(rollup.getRarity(), null, rollup.getDay(), rollup.getCount());
+        }
+    }
+
+    /**
+     * Obtient l'historique des quêtes terminées
+     */
+    public CompletedQuestHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Résume les complétions sorties de la fenêtre chaude et les prépare pour l'archive
+     */
+    public void compactHistory(long now, long hotMillis, int maxEntries) {
+        List<PlayerDataSnapshot.CompletedEntry> archived = history.compact(now, hotMillis, maxEntries);
+        if (!archived.isEmpty()) {
+            pendingArchive.addAll(archived);
+            markDirty();
+        }
     }
 
     /**
@@ -152,10 +265,18 @@ public class PlayerQuestData {
                 if (quest.hasExpired()) {
                     expiredQuests.add(quest);
                     iterator.remove();
+                    unindexQuest(quest);
+                    if (journal != null) {
+                        journal.logRemove(playerUUID, quest.getQuestId());
+                    }
                 }
             }
         }
 
+        if (!expiredQuests.isEmpty()) {
+            markDirty();
+        }
+
         return expiredQuests;
     }
 
@@ -163,7 +284,35 @@ public class PlayerQuestData {
      * Efface toutes les quêtes actives d'une rareté donnée
      */
     public void clearActiveQuests(Quest.QuestRarity rarity) {
-        activeQuests.get(rarity).clear();
+        List<Quest> quests = activeQuests.get(rarity);
+        if (!quests.isEmpty()) {
+            if (journal != null) {
+                // Suppressions par ID : le rejeu ne retire pas une quête attribuée après la rotation
+                for (Quest quest : quests) {
+                    journal.logRemove(playerUUID, quest.getQuestId());
+                }
+            }
+            List<Quest> removed = new ArrayList<>(quests);
+            quests.clear();
+            for (Quest quest : removed) {
+                unindexQuest(quest);
+            }
+            markDirty();
+        }
+    }
+
+    /**
+     * Ajoute du progrès à une quête active et marque les données comme modifiées
+     */
+    public void addQuestProgress(Quest quest, int amount) {
+        int oldProgress = quest.getProgress();
+        quest.addProgress(amount);
+        if (quest.getProgress() != oldProgress) {
+            markDirty();
+            if (journal != null) {
+                journal.logProgress(playerUUID, quest.getQuestId(), quest.getProgress());
+            }
+        }
     }
 
     /**
@@ -172,35 +321,211 @@ public class PlayerQuestData {
     public boolean updateQuestProgress(String questId, int amount) {
         Quest quest = getActiveQuestById(questId);
         if (quest != null) {
-            quest.addProgress(amount);
+            addQuestProgress(quest, amount);
             return quest.isCompleted();
         }
         return false;
     }
 
     /**
-     * Trouve une quête par type et target
+     * Trouve une quête par type et cible du jeu (EntityType pour KILL, Material sinon) : lecture d'un tableau par ordinal
+     */
+    public Quest findQuestByTypeAndTarget(Quest.QuestType type, Enum<?> target) {
+        TargetIndex index = questIndex.get(type);
+        return index != null ? index.get(target.ordinal()) : null;
+    }
+
+    /**
+     * Trouve une quête par type et target (cible libre, insensible à la casse)
      */
     public Quest findQuestByTypeAndTarget(Quest.QuestType type, String target) {
-        for (Quest quest : getAllActiveQuests()) {
-            if (quest.getType() == type && quest.getTarget().equalsIgnoreCase(target)) {
-                return quest;
+        TargetIndex index = questIndex.get(type);
+        return index != null ? index.get(target) : null;
+    }
+
+    /**
+     * Ajoute une quête à l'index (la première quête d'une cible reste celle qui progresse)
+     */
+    private void indexQuest(Quest quest) {
+        if (questIndex.computeIfAbsent(quest.getType(), TargetIndex::new).putIfAbsent(quest) && interest != null) {
+            interest.add(quest.getType(), quest.getTarget());
+        }
+    }
+
+    /**
+     * Retire une quête de l'index, remplacée par une autre quête active de même cible s'il y en a une
+     */
+    private void unindexQuest(Quest quest) {
+        TargetIndex index = questIndex.get(quest.getType());
+        if (index == null) {
+            return;
+        }
+        Quest indexed = index.get(quest.getTarget());
+        if (indexed == null || !indexed.getQuestId().equals(quest.getQuestId())) {
+            return;
+        }
+        index.remove(quest);
+        for (List<Quest> quests : activeQuests.values()) {
+            for (Quest other : quests) {
+                if (other.getType() == quest.getType() && other.getTarget().equalsIgnoreCase(quest.getTarget())) {
+                    index.putIfAbsent(other);
+                    return;
+                }
             }
         }
-        return null;
+        if (interest != null) {
+            interest.remove(quest.getType(), quest.getTarget());
+        }
     }
 
     // Getters et setters
     public UUID getPlayerUUID() { return playerUUID; }
 
     public String getPlayerName() { return playerName; }
-    public void setPlayerName(String playerName) { this.playerName = playerName; }
+    public void setPlayerName(String playerName) {
+        if (!Objects.equals(this.playerName, playerName)) {
+            this.playerName = playerName;
+            markDirty();
+        }
+    }
+
+    public long getLastSeen() { return lastSeen; }
+
+    /**
+     * Enregistre la dernière connexion ou déconnexion du joueur (politique de rétention)
+     */
+    public void setLastSeen(long lastSeen) {
+        if (this.lastSeen != lastSeen) {
+            this.lastSeen = lastSeen;
+            markDirty();
+        }
+    }
 
     public long getLastReset(Quest.QuestRarity rarity) {
         return lastReset.getOrDefault(rarity, 0L);
     }
     public void setLastReset(Quest.QuestRarity rarity, long time) {
-        lastReset.put(rarity, time);
+        Long previous = lastReset.put(rarity, time);
+        if (previous == null || previous != time) {
+            markDirty();
+            if (journal != null) {
+                journal.logReset(playerUUID, rarity, time);
+            }
+        }
+    }
+
+    /**
+     * Active la journalisation des modifications (une fois les données chargées)
+     */
+    public void attachJournal(QuestJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Déclare les cibles de ces quêtes au filtre global (entrée dans le cache)
+     */
+    public void attachInterest(QuestInterest interest) {
+        if (this.interest == interest) {
+            return;
+        }
+        detachInterest();
+        this.interest = interest;
+        forEachIndexedTarget(interest::add);
+    }
+
+    /**
+     * Retire les cibles de ces quêtes du filtre global (sortie du cache)
+     */
+    public void detachInterest() {
+        if (interest != null) {
+            forEachIndexedTarget(interest::remove);
+            interest = null;
+        }
+    }
+
+    private void forEachIndexedTarget(BiConsumer<Quest.QuestType, String> action) {
+        for (TargetIndex index : questIndex.values()) {
+            for (Quest quest : index.byOrdinal) {
+                if (quest != null) {
+                    action.accept(index.type, quest.getTarget());
+                }
+            }
+            for (Quest quest : index.unresolved.values()) {
+                action.accept(index.type, quest.getTarget());
+            }
+        }
+    }
+
+    /**
+     * Signale une modification des données (progrès, rotation, complétion, récupération)
+     */
+    public void markDirty() {
+        version++;
+    }
+
+    /**
+     * Vérifie si les données ont changé depuis la dernière sauvegarde
+     */
+    public boolean isDirty() {
+        return version != savedVersion;
+    }
+
+    /**
+     * Obtient la version courante des données (incrémentée à chaque modification)
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Données fraîchement chargées : reprend la version du snapshot lu (rien à sauvegarder),
+     * pour que les prochains snapshots passent devant lui dans la file d'écriture
+     */
+    public void restoreVersion(long snapshotVersion) {
+        version = Math.max(version, snapshotVersion);
+        savedVersion = version;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Remet des complétions à archiver avec le prochain snapshot (données reconstruites après une fusion)
+     */
+    public void restorePendingArchive(List<PlayerDataSnapshot.CompletedEntry> entries) {
+        pendingArchive.addAll(0, entries);
+    }
+
+    /**
+     * Marque les données comme sauvegardées jusqu'à la version donnée
+     */
+    public void markSaved(long savedVersion) {
+        long saved = Math.min(savedVersion, version);
+        if (saved > this.savedVersion) {
+            this.savedVersion = saved;
+        }
+    }
+
+    /**
+     * Capture une copie immuable des données (à appeler sur le thread principal).
+     * Les complétions à archiver sont transférées au snapshot.
+     */
+    public PlayerDataSnapshot createSnapshot() {
+        List<PlayerDataSnapshot.ActiveQuest> active = new ArrayList<>();
+        for (List<Quest> quests : activeQuests.values()) {
+            for (Quest quest : quests) {
+                active.add(new PlayerDataSnapshot.ActiveQuest(quest));
+            }
+        }
+
+        List<PlayerDataSnapshot.CompletedEntry> archived = new ArrayList<>(pendingArchive);
+        pendingArchive.clear();
+
+        return new PlayerDataSnapshot(playerUUID, playerName, version, lastReset, active,
+                history.getRecentEntries(), history.getRollups(), archived, counters.toSnapshot(), lastSeen, revision);
     }
 
     /**
@@ -237,7 +562,54 @@ public class PlayerQuestData {
                 "playerUUID=" + playerUUID +
                 ", playerName='" + playerName + '\'' +
                 ", activeQuests=" + activeQuests.size() +
-                ", completedQuests=" + completedQuests.size() +
+                ", completedQuests=" + counters.getTotal() +
                 '}';
     }
-}
\ No newline at end of file
+
+    /**
+     * Quêtes actives d'un type par cible : tableau par ordinal du Material/EntityType,
+     * table en minuscules pour les cibles qui ne correspondent à aucune constante
+     */
+    private static final class TargetIndex {
+        private final Quest.QuestType type;
+        private Quest[] byOrdinal = new Quest[0];
+        private final Map<String, Quest> unresolved = new HashMap<>();
+
+        private TargetIndex(Quest.QuestType type) {
+            this.type = type;
+        }
+
+        private Quest get(int ordinal) {
+            return ordinal < byOrdinal.length ? byOrdinal[ordinal] : null;
+        }
+
+        private Quest get(String target) {
+            int ordinal = QuestInterest.ordinalOf(type, target);
+            return ordinal >= 0 ? get(ordinal) : unresolved.get(target.toLowerCase(Locale.ROOT));
+        }
+
+        private boolean putIfAbsent(Quest quest) {
+            int ordinal = QuestInterest.ordinalOf(type, quest.getTarget());
+            if (ordinal < 0) {
+                return unresolved.putIfAbsent(quest.getTarget().toLowerCase(Locale.ROOT), quest) == null;
+            }
+            if (ordinal >= byOrdinal.length) {
+                byOrdinal = Arrays.copyOf(byOrdinal, ordinal + 1);
+            }
+            if (byOrdinal[ordinal] != null) {
+                return false;
+            }
+            byOrdinal[ordinal] = quest;
+            return true;
+        }
+
+        private void remove(Quest quest) {
+            int ordinal = QuestInterest.ordinalOf(type, quest.getTarget());
+            if (ordinal < 0) {
+                unresolved.remove(quest.getTarget().toLowerCase(Locale.ROOT));
+            } else if (ordinal < byOrdinal.length) {
+                byOrdinal[ordinal] = null;
+            }
+        }
+    }
+}
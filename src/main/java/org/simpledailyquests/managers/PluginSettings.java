@@ -0,0 +1,131 @@
+package org.simpledailyquests.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Paramètres de config.yml lus à chaque événement, compilés une fois au chargement.
+ * Immuable : {@link ConfigManager} en remplace l'instance entière lors d'un rechargement
+ * ou du chargement d'un monde, les listeners n'ont jamais à parcourir la configuration.
+ */
+public final class PluginSettings {
+
+    private final Set<String> allowedWorldNames;
+    private final Set<UUID> allowedWorldIds;
+
+    private final boolean debugEnabled;
+    private final boolean logQuestProgress;
+    private final boolean logQuestAssignment;
+    private final boolean logBlockTracking;
+
+    private final ConfiguredSound questCompletedSound;
+    private final ConfiguredSound questAssignedSound;
+    private final ConfiguredSound rewardsClaimedSound;
+    private final ConfiguredSound menuOpenSound;
+    private final ConfiguredSound menuClickSound;
+
+    private PluginSettings(FileConfiguration config, Collection<? extends World> worlds, Logger logger) {
+        Set<String> worldNames = new HashSet<>();
+        for (String world : config.getStringList("quest-settings.allowed-worlds")) {
+            worldNames.add(world.toLowerCase(Locale.ROOT));
+        }
+        this.allowedWorldNames = Collections.unmodifiableSet(worldNames);
+
+        // Comparaison insensible à la casse faite ici une fois pour toutes, les événements ne comparent que l'UID
+        Set<UUID> worldIds = new HashSet<>();
+        for (World world : worlds) {
+            if (worldNames.contains(world.getName().toLowerCase(Locale.ROOT))) {
+                worldIds.add(world.getUID());
+            }
+        }
+        this.allowedWorldIds = Collections.unmodifiableSet(worldIds);
+
+        this.debugEnabled = config.getBoolean("debug.enabled", false);
+        this.logQuestProgress = config.getBoolean("debug.log-quest-progress", false);
+        this.logQuestAssignment = config.getBoolean("debug.log-quest-assignment", true);
+        this.logBlockTracking = config.getBoolean("debug.log-block-tracking", false);
+
+        Map<String, Sound> soundNames = new HashMap<>(); // Rempli au premier ancien nom d'enum rencontré
+        this.questCompletedSound = resolveSound(config.getString("sounds.quest-completed"), soundNames, logger);
+        this.questAssignedSound = resolveSound(config.getString("sounds.quest-assigned"), soundNames, logger);
+        this.rewardsClaimedSound = resolveSound(config.getString("sounds.rewards-claimed", "ENTITY_PLAYER_LEVELUP"), soundNames, logger);
+        this.menuOpenSound = resolveSound(config.getString("sounds.menu-open"), soundNames, logger);
+        this.menuClickSound = resolveSound(config.getString("sounds.menu-click"), soundNames, logger);
+    }
+
+    /**
+     * Compile la configuration pour les mondes actuellement chargés
+     */
+    public static PluginSettings compile(FileConfiguration config, Logger logger) {
+        return new PluginSettings(config, Bukkit.getWorlds(), logger);
+    }
+
+    /**
+     * Vérifie si les quêtes progressent dans ce monde (liste vide : tous les mondes)
+     */
+    public boolean isWorldAllowed(World world) {
+        return allowedWorldNames.isEmpty() || allowedWorldIds.contains(world.getUID());
+    }
+
+    /**
+     * Vérifie si un monde chargé après la compilation fait partie de la liste (à recompiler)
+     */
+    public boolean isListed(World world) {
+        return allowedWorldNames.contains(world.getName().toLowerCase(Locale.ROOT));
+    }
+
+    public boolean isDebugEnabled() { return debugEnabled; }
+    public boolean isLogQuestProgress() { return logQuestProgress; }
+    public boolean isLogQuestAssignment() { return logQuestAssignment; }
+    public boolean isLogBlockTracking() { return logBlockTracking; }
+
+    /**
+     * Sons résolus au chargement (null si absent ou inconnu)
+     */
+    public ConfiguredSound getQuestCompletedSound() { return questCompletedSound; }
+    public ConfiguredSound getQuestAssignedSound() { return questAssignedSound; }
+    public ConfiguredSound getRewardsClaimedSound() { return rewardsClaimedSound; }
+    public ConfiguredSound getMenuOpenSound() { return menuOpenSound; }
+    public ConfiguredSound getMenuClickSound() { return menuClickSound; }
+
+    /**
+     * Résout un son par sa clé (entity.player.levelup, monpack:quete.terminee) ou son ancien nom d'enum
+     * (ENTITY_PLAYER_LEVELUP). Une clé absente du registre est gardée telle quelle (son d'un pack de ressources).
+     */
+    private static ConfiguredSound resolveSound(String name, Map<String, Sound> soundNames, Logger logger) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        String value = name.trim();
+
+        if (value.indexOf('.') < 0 && value.indexOf(':') < 0) {
+            // Ancien nom d'enum : clé du registre en majuscules, points remplacés par des tirets bas
+            if (soundNames.isEmpty()) {
+                for (Sound sound : Registry.SOUNDS) {
+                    soundNames.put(sound.getKey().getKey().toUpperCase(Locale.ROOT).replace('.', '_'), sound);
+                }
+            }
+            Sound sound = soundNames.get(value.toUpperCase(Locale.ROOT));
+            if (sound == null) {
+                logger.warning("Son inconnu dans config.yml: " + name);
+                return null;
+            }
+            return ConfiguredSound.of(sound);
+        }
+
+        NamespacedKey key = NamespacedKey.fromString(value.toLowerCase(Locale.ROOT));
+        if (key == null) {
+            logger.warning("Clé de son invalide dans config.yml: " + name);
+            return null;
+        }
+        Sound sound = Registry.SOUNDS.get(key);
+        return sound != null ? ConfiguredSound.of(sound) : ConfiguredSound.ofKey(key.asString());
+    }
+}
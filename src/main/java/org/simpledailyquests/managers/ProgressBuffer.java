@@ -0,0 +1,115 @@
+package org.simpledailyquests.managers;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.simpledailyquests.SimpleDailyQuests;
+import org.simpledailyquests.models.Quest;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.*;
+
+/**
+ * Progrès accumulés pendant un tick, appliqués en une fois à la fin du tick.
+ * Un joueur qui mine un filon ou utilise un outil de zone produit des dizaines d'incréments
+ * sur la même quête : chacun n'est plus qu'une addition dans un tableau, la complétion,
+ * les notifications et le scoreboard sont traités une seule fois par joueur et par tick.
+ * Appliqués à la fin du tick en cours (événement de fin de tick de Paper), après tous les événements du tick.
+ * Thread principal uniquement.
+ */
+public class ProgressBuffer implements Listener {
+
+    private final SimpleDailyQuests plugin;
+    private final QuestManager questManager;
+
+    // Tampons réutilisés d'un tick à l'autre (retirés à la déconnexion)
+    private final Map<UUID, PlayerProgress> buffers = new HashMap<>();
+    private List<PlayerProgress> pending = new ArrayList<>();
+
+    public ProgressBuffer(SimpleDailyQuests plugin, QuestManager questManager) {
+        this.plugin = plugin;
+        this.questManager = questManager;
+    }
+
+    /**
+     * Ajoute un incrément pour une quête (appliqué à la fin du tick)
+     */
+    public void add(Player player, Quest quest, int amount) {
+        PlayerProgress progress = buffers.get(player.getUniqueId());
+        if (progress == null) {
+            progress = new PlayerProgress();
+            buffers.put(player.getUniqueId(), progress);
+        }
+        if (progress.size == 0) {
+            pending.add(progress);
+        }
+        progress.player = player;
+        progress.add(quest, amount);
+    }
+
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        if (!pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Applique tous les incréments en attente.
+     * Les incréments ajoutés pendant l'application (récompenses, nouvelle quête) attendent la fin du tick suivant.
+     */
+    public void flush() {
+        List<PlayerProgress> flushing = pending;
+        pending = new ArrayList<>();
+        for (int i = 0; i < flushing.size(); i++) {
+            apply(flushing.get(i));
+        }
+    }
+
+    /**
+     * Applique les incréments d'un joueur puis oublie son tampon (déconnexion)
+     */
+    public void flush(UUID playerUUID) {
+        PlayerProgress progress = buffers.remove(playerUUID);
+        if (progress != null && progress.size > 0) {
+            pending.remove(progress);
+            apply(progress);
+        }
+    }
+
+    private void apply(PlayerProgress progress) {
+        int size = progress.size;
+        progress.size = 0;
+        for (int i = 0; i < size; i++) {
+            questManager.applyQuestProgress(progress.player, progress.quests[i], progress.amounts[i]);
+            progress.quests[i] = null;
+        }
+        plugin.getScoreboardManager().updatePlayerScoreboard(progress.player);
+    }
+
+    /**
+     * Incréments d'un joueur pendant le tick, par quête (quelques quêtes actives : recherche linéaire)
+     */
+    private static final class PlayerProgress {
+        private Player player;
+        private Quest[] quests = new Quest[4];
+        private int[] amounts = new int[4];
+        private int size;
+
+        private void add(Quest quest, int amount) {
+            for (int i = 0; i < size; i++) {
+                if (quests[i] == quest) {
+                    amounts[i] += amount;
+                    return;
+                }
+            }
+            if (size == quests.length) {
+                quests = Arrays.copyOf(quests, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            quests[size] = quest;
+            amounts[size] = amount;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.simpledailyquests.managers;
+
+import org.simpledailyquests.models.Quest;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import java.util.*;
+
+/**
+ * Cibles recherchées par au moins un joueur en cache, par type de quête.
+ * Chaque cible est comptée une fois par joueur qui a une quête active dessus (ordinal du Material ou de l'EntityType),
+ * ce qui permet aux listeners d'ignorer en quelques nanosecondes les événements qui n'intéressent personne.
+ * Une cible qui ne correspond à aucun Material/EntityType (cible personnalisée) laisse passer tout le type.
+ * Thread principal uniquement.
+ */
+public class QuestInterest {
+
+    private final Map<Quest.QuestType, Targets> targets = new EnumMap<>(Quest.QuestType.class);
+
+    public QuestInterest() {
+        for (Quest.QuestType type : Quest.QuestType.values()) {
+            targets.put(type, new Targets());
+        }
+    }
+
+    /**
+     * Un joueur a une quête active sur cette cible
+     */
+    public void add(Quest.QuestType type, String target) {
+        Targets typeTargets = targets.get(type);
+        int ordinal = ordinalOf(type, target);
+        if (ordinal < 0) {
+            typeTargets.unresolved++;
+            return;
+        }
+        typeTargets.increment(ordinal);
+    }
+
+    /**
+     * Un joueur n'a plus de quête active sur cette cible
+     */
+    public void remove(Quest.QuestType type, String target) {
+        Targets typeTargets = targets.get(type);
+        int ordinal = ordinalOf(type, target);
+        if (ordinal < 0) {
+            typeTargets.unresolved = Math.max(0, typeTargets.unresolved - 1);
+            return;
+        }
+        typeTargets.decrement(ordinal);
+    }
+
+    /**
+     * Vérifie si au moins un joueur peut progresser sur cette cible
+     */
+    public boolean isWanted(Quest.QuestType type, Enum<?> target) {
+        Targets typeTargets = targets.get(type);
+        return typeTargets.unresolved > 0 || typeTargets.wanted.get(target.ordinal());
+    }
+
+    /**
+     * Vérifie si au moins un joueur a une quête de ce type (cibles non résolues, par exemple une pêche sans item)
+     */
+    public boolean isWanted(Quest.QuestType type) {
+        Targets typeTargets = targets.get(type);
+        return typeTargets.unresolved > 0 || !typeTargets.wanted.isEmpty();
+    }
+
+    /**
+     * Nombre de cibles distinctes recherchées (commande admin)
+     */
+    public int getWantedCount() {
+        int count = 0;
+        for (Targets typeTargets : targets.values()) {
+            count += typeTargets.wanted.cardinality() + (typeTargets.unresolved > 0 ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Ordinal de la cible d'une quête (même nommage que les listeners : nom de l'enum en minuscules), -1 si inconnue
+     */
+    static int ordinalOf(Quest.QuestType type, String target) {
+        String name = target.toUpperCase(Locale.ROOT);
+        try {
+            return type == Quest.QuestType.KILL ? EntityType.valueOf(name).ordinal() : Material.valueOf(name).ordinal();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Compteurs par ordinal et ensemble des ordinaux recherchés d'un type de quête
+     */
+    private static final class Targets {
+        private int[] counts = new int[0];
+        private final BitSet wanted = new BitSet();
+        private int unresolved;
+
+        private void increment(int ordinal) {
+            if (ordinal >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(ordinal + 1, counts.length * 2));
+            }
+            if (counts[ordinal]++ == 0) {
+                wanted.set(ordinal);
+            }
+        }
+
+        private void decrement(int ordinal) {
+            if (ordinal < counts.length && counts[ordinal] > 0 && --counts[ordinal] == 0) {
+                wanted.clear(ordinal);
+            }
+        }
+    }
+}
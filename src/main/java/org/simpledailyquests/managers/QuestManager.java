@@ -2,6 +2,7 @@ package org.simpledailyquests.managers;
 
 import org.simpledailyquests.SimpleDailyQuests;
 import org.simpledailyquests.models.Quest;
+import org.simpledailyquests.storage.QuestEventLog;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -11,9 +12,11 @@ import java.util.*;
 public class QuestManager {
 
     private final SimpleDailyQuests plugin;
+    private final ProgressBuffer progressBuffer;
 
     public QuestManager(SimpleDailyQuests plugin) {
         this.plugin = plugin;
+        this.progressBuffer = new ProgressBuffer(plugin, this);
     }
 
     /**
@@ -49,7 +52,11 @@ public class QuestManager {
         // Supprime les quêtes expirées (selon leur durée individuelle, pas le timer de rotation)
         List<Quest> expiredQuests = playerData.removeExpiredQuests();
         if (!expiredQuests.isEmpty()) {
+            QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
             for (Quest expired : expiredQuests) {
+                if (eventLog != null) {
+                    eventLog.logExpired(player.getUniqueId(), expired);
+                }
                 String message = plugin.getConfigManager().getMessagesConfig()
                         .getString("quest-expired", "&cQuête expirée: &f{description}")
                         .replace("{description}", expired.getDescription())
@@ -91,6 +98,13 @@ public class QuestManager {
         List<Quest> oldQuests = new ArrayList<>(playerData.getActiveQuests(rarity));
         playerData.clearActiveQuests(rarity);
 
+        QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
+        if (eventLog != null) {
+            for (Quest oldQuest : oldQuests) {
+                eventLog.logRotated(player.getUniqueId(), oldQuest);
+            }
+        }
+
         // Met à jour le timestamp pour le prochain timer
         playerData.setLastReset(rarity, System.currentTimeMillis());
 
@@ -116,7 +130,7 @@ public class QuestManager {
             }
         }
 
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-assignment", true)) {
+        if (plugin.getConfigManager().getSettings().isLogQuestAssignment()) {
             plugin.getLogger().info("Rotation de quête " + rarity.name() + " pour " + player.getName());
         }
     }
@@ -149,7 +163,7 @@ public class QuestManager {
         // GÉNÈRE UNE NOUVELLE QUÊTE pour cette rareté (pour les commandes admin seulement)
         generateRandomQuestForRarity(player, rarity);
 
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-assignment", true)) {
+        if (plugin.getConfigManager().getSettings().isLogQuestAssignment()) {
             plugin.getLogger().info("Reset ADMIN des quêtes " + rarity.name() + " pour " + player.getName() + " + timer redémarré");
         }
     }
@@ -164,7 +178,7 @@ public class QuestManager {
         // Vérifie si le joueur peut recevoir une nouvelle quête (limite : 1 par rareté)
         int maxQuests = 1; // Toujours 1 quête maximum par rareté
         if (!playerData.canReceiveQuest(rarity, maxQuests)) {
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-assignment", true)) {
+            if (plugin.getConfigManager().getSettings().isLogQuestAssignment()) {
                 plugin.getLogger().info("Joueur " + player.getName() + " ne peut pas recevoir de quête " + rarity.name() + " (déjà une active)");
             }
             return;
@@ -192,16 +206,12 @@ public class QuestManager {
             player.sendMessage(prefix + message);
 
             // Son optionnel
-            String sound = plugin.getConfigManager().getConfig().getString("sounds.quest-assigned");
-            if (sound != null && !sound.isEmpty()) {
-                try {
-                    player.playSound(player.getLocation(), sound, 0.7f, 1.2f);
-                } catch (Exception e) {
-                    // Ignore les erreurs de son
-                }
+            ConfiguredSound sound = plugin.getConfigManager().getSettings().getQuestAssignedSound();
+            if (sound != null) {
+                sound.play(player, 0.7f, 1.2f);
             }
 
-            if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-assignment", true)) {
+            if (plugin.getConfigManager().getSettings().isLogQuestAssignment()) {
                 plugin.getLogger().info("Nouvelle quête " + rarity.name() + " assignée à " + player.getName() + ": " + newQuest.getQuestId());
             }
         }
@@ -314,13 +324,9 @@ public class QuestManager {
                 player.sendMessage(prefix + message);
 
                 // Son optionnel
-                String sound = plugin.getConfigManager().getConfig().getString("sounds.quest-assigned");
-                if (sound != null && !sound.isEmpty()) {
-                    try {
-                        player.playSound(player.getLocation(), sound, 0.7f, 1.2f);
-                    } catch (Exception e) {
-                        // Ignore les erreurs de son
-                    }
+                ConfiguredSound sound = plugin.getConfigManager().getSettings().getQuestAssignedSound();
+                if (sound != null) {
+                    sound.play(player, 0.7f, 1.2f);
                 }
             }
         }, 40L); // 2 secondes de délai
@@ -341,29 +347,59 @@ public class QuestManager {
         String prefix = plugin.getConfigManager().getMessagesConfig().getString("prefix", "");
         player.sendMessage(prefix + message.replace("&", "§"));
 
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-assignment", true)) {
+        if (plugin.getConfigManager().getSettings().isLogQuestAssignment()) {
             plugin.getLogger().info("Quête assignée manuellement à " + player.getName() + ": " + quest.getQuestId());
         }
     }
 
     /**
-     * Traite le progrès d'une quête pour un joueur
+     * Traite le progrès d'une quête sur une cible du jeu (EntityType pour KILL, Material sinon), sans allocation
+     */
+    public void processQuestProgress(Player player, Quest.QuestType type, Enum<?> target, int amount) {
+        PlayerQuestData playerData = plugin.getPlayerDataManager().getPlayerData(player);
+
+        Quest quest = playerData.findQuestByTypeAndTarget(type, target);
+        if (quest != null) {
+            progressBuffer.add(player, quest, amount);
+        }
+    }
+
+    /**
+     * Traite le progrès d'une quête pour un joueur (cumulé puis appliqué à la fin du tick)
      */
     public void processQuestProgress(Player player, Quest.QuestType type, String target, int amount) {
         PlayerQuestData playerData = plugin.getPlayerDataManager().getPlayerData(player);
 
         // Trouve la quête correspondante
         Quest quest = playerData.findQuestByTypeAndTarget(type, target);
-        if (quest == null) {
+        if (quest != null) {
+            progressBuffer.add(player, quest, amount);
+        }
+    }
+
+    /**
+     * Applique le progrès cumulé d'une quête pendant un tick (le scoreboard est mis à jour par l'appelant)
+     */
+    void applyQuestProgress(Player player, Quest buffered, int amount) {
+        PlayerQuestData playerData = plugin.getPlayerDataManager().getPlayerData(player);
+
+        // La quête a pu être récupérée, remplacée ou rechargée depuis l'événement
+        Quest quest = playerData.findQuestByTypeAndTarget(buffered.getType(), buffered.getTarget());
+        if (quest == null || !quest.getQuestId().equals(buffered.getQuestId())) {
             return;
         }
 
         // Ajoute le progrès
         int oldProgress = quest.getProgress();
-        quest.addProgress(amount);
+        playerData.addQuestProgress(quest, amount);
+
+        QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
+        if (eventLog != null && quest.getProgress() > oldProgress) {
+            eventLog.logProgress(player.getUniqueId(), quest, quest.getProgress() - oldProgress);
+        }
 
         // Log du progrès si activé
-        if (plugin.getConfigManager().getConfig().getBoolean("debug.log-quest-progress", false)) {
+        if (plugin.getConfigManager().getSettings().isLogQuestProgress()) {
             plugin.getLogger().info(player.getName() + " a progressé sur " + quest.getQuestId() +
                     ": " + oldProgress + " -> " + quest.getProgress() + "/" + quest.getRequired());
         }
@@ -372,15 +408,38 @@ public class QuestManager {
         if (quest.isCompleted() && oldProgress < quest.getRequired()) {
             markQuestAsCompleted(player, quest);
         }
+    }
 
-        // Met à jour le scoreboard si activé
-        plugin.getScoreboardManager().updatePlayerScoreboard(player);
+    /**
+     * Tampon des progrès du tick (listener de fin de tick)
+     */
+    public ProgressBuffer getProgressBuffer() {
+        return progressBuffer;
+    }
+
+    /**
+     * Applique immédiatement les progrès en attente d'un joueur (déconnexion)
+     */
+    public void flushProgress(UUID playerUUID) {
+        progressBuffer.flush(playerUUID);
+    }
+
+    /**
+     * Applique immédiatement tous les progrès en attente (arrêt du plugin)
+     */
+    public void flushProgress() {
+        progressBuffer.flush();
     }
 
     /**
      * Marque une quête comme terminée et affiche le titre (sans donner les récompenses)
      */
     public void markQuestAsCompleted(Player player, Quest quest) {
+        QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
+        if (eventLog != null) {
+            eventLog.logCompleted(player.getUniqueId(), quest);
+        }
+
         // Affiche le titre de quête terminée
         String title = plugin.getConfigManager().getMessagesConfig()
                 .getString("quest-completed-title", "&a&lQuête Terminée!")
@@ -401,13 +460,9 @@ public class QuestManager {
         player.sendMessage(prefix + message);
 
         // Son de completion si configuré
-        String sound = plugin.getConfigManager().getConfig().getString("sounds.quest-completed");
-        if (sound != null && !sound.isEmpty()) {
-            try {
-                player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-            } catch (Exception e) {
-                // Ignore les erreurs de sons
-            }
+        ConfiguredSound sound = plugin.getConfigManager().getSettings().getQuestCompletedSound();
+        if (sound != null) {
+            sound.play(player, 1.0f, 1.0f);
         }
 
         // Met à jour le scoreboard
@@ -441,6 +496,11 @@ public class QuestManager {
         // Marque la quête comme terminée et la retire des quêtes actives
         playerData.completeQuest(quest);
 
+        QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
+        if (eventLog != null) {
+            eventLog.logClaimed(player.getUniqueId(), quest);
+        }
+
         // Donne les récompenses directement (sans vérification d'inventaire pour admin)
         giveQuestRewards(player, quest);
 
@@ -453,13 +513,9 @@ public class QuestManager {
         player.sendMessage(prefix + message);
 
         // Son de completion
-        String sound = plugin.getConfigManager().getConfig().getString("sounds.quest-completed");
-        if (sound != null && !sound.isEmpty()) {
-            try {
-                player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-            } catch (Exception e) {
-                // Ignore les erreurs de sons
-            }
+        ConfiguredSound sound = plugin.getConfigManager().getSettings().getQuestCompletedSound();
+        if (sound != null) {
+            sound.play(player, 1.0f, 1.0f);
         }
 
         // Met à jour le scoreboard
@@ -487,6 +543,11 @@ public class QuestManager {
         // Marque la quête comme terminée et la retire des quêtes actives
         playerData.completeQuest(quest);
 
+        QuestEventLog eventLog = plugin.getPlayerDataManager().getEventLog();
+        if (eventLog != null) {
+            eventLog.logClaimed(player.getUniqueId(), quest);
+        }
+
         // IMPORTANT : On ne modifie PAS le lastReset ici
         // La nouvelle quête viendra au moment du timer normal
 
@@ -520,13 +581,9 @@ public class QuestManager {
         }
 
         // Son de récupération
-        String sound = plugin.getConfigManager().getConfig().getString("sounds.rewards-claimed", "ENTITY_PLAYER_LEVELUP");
-        if (sound != null && !sound.isEmpty()) {
-            try {
-                player.playSound(player.getLocation(), sound, 1.0f, 1.2f);
-            } catch (Exception e) {
-                // Ignore les erreurs de sons
-            }
+        ConfiguredSound sound = plugin.getConfigManager().getSettings().getRewardsClaimedSound();
+        if (sound != null) {
+            sound.play(player, 1.0f, 1.2f);
         }
 
         return true;
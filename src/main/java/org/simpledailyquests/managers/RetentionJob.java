@@ -0,0 +1,263 @@
+package org.simpledailyquests.managers;
+
+import org.simpledailyquests.SimpleDailyQuests;
+import org.simpledailyquests.storage.AtomicFiles;
+import org.simpledailyquests.storage.BinaryPlayerDataCodec;
+import org.simpledailyquests.storage.PlayerDataSnapshot;
+import org.simpledailyquests.storage.PlayerDataStorage;
+import org.simpledailyquests.storage.PlayerDataWriter;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Politique de rétention : supprime les joueurs inactifs depuis plus de N jours.
+ * Le stockage est parcouru par tranches sur le thread d'écriture, une tranche à la fois,
+ * pour ne jamais bloquer le thread principal ni retarder longtemps les sauvegardes.
+ * Les joueurs supprimés sont d'abord copiés dans retention/<date>/ (format binaire et archive d'historique).
+ */
+public class RetentionJob {
+
+    private static final String RETENTION_FOLDER = "retention";
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int SAMPLE_SIZE = 10;
+
+    private final SimpleDailyQuests plugin;
+    private final PlayerDataManager manager;
+    private boolean running;
+
+    public RetentionJob(SimpleDailyQuests plugin, PlayerDataManager manager) {
+        this.plugin = plugin;
+        this.manager = manager;
+    }
+
+    /**
+     * Lance un passage complet (thread principal). En simulation, rien n'est supprimé ni archivé.
+     * Renvoie false si un passage est déjà en cours ou si le stockage n'est pas disponible.
+     */
+    public boolean start(boolean dryRun, Consumer<Report> onFinished) {
+        PlayerDataWriter writer = manager.getWriter();
+        if (running || writer == null) {
+            return false;
+        }
+        running = true;
+
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        Run run = new Run(dryRun, Math.max(1, config.getInt("storage.retention.inactive-days", 90)),
+                Math.max(1, config.getInt("storage.retention.players-per-slice", 50)),
+                Math.max(1L, config.getLong("storage.retention.slice-interval-ticks", 20)), onFinished);
+        if (!dryRun && config.getBoolean("storage.retention.archive", true)) {
+            run.archiveFolder = new File(new File(plugin.getDataFolder(), RETENTION_FOLDER),
+                    new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()));
+        }
+
+        writer.submit(PlayerDataStorage::listPlayers).whenComplete((players, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                finish(run, error);
+                return;
+            }
+            run.players = players;
+            processSlice(run);
+        }));
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Traite la tranche suivante : lecture et archivage sur le thread d'écriture, suppression sur le thread principal
+     */
+    private void processSlice(Run run) {
+        PlayerDataWriter writer = manager.getWriter();
+        if (writer == null) {
+            finish(run, new IOException("stockage fermé pendant le passage"));
+            return;
+        }
+        if (run.next >= run.players.size()) {
+            finish(run, null);
+            return;
+        }
+
+        List<UUID> slice = new ArrayList<>(run.players.subList(run.next, Math.min(run.players.size(), run.next + run.sliceSize)));
+        run.next += slice.size();
+
+        writer.submit(storage -> {
+            List<PlayerDataSnapshot> stale = new ArrayList<>();
+            for (UUID playerUUID : slice) {
+                PlayerDataSnapshot snapshot = writer.findPending(playerUUID);
+                if (snapshot == null) {
+                    snapshot = storage.load(playerUUID);
+                }
+                if (snapshot == null || snapshot.getLastActivity() >= run.cutoff) {
+                    continue;
+                }
+                if (run.archiveFolder != null && !archive(writer, snapshot, run.archiveFolder)) {
+                    continue; // Jamais de suppression sans copie
+                }
+                stale.add(snapshot);
+            }
+            return stale;
+        }).whenComplete((stale, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                finish(run, error);
+                return;
+            }
+
+            run.scanned += slice.size();
+            List<UUID> purged = new ArrayList<>();
+            for (PlayerDataSnapshot snapshot : stale) {
+                if (!manager.canPurge(snapshot.getPlayerUUID(), run.cutoff)) {
+                    run.skipped++;
+                    continue;
+                }
+                run.stale++;
+                if (run.oldest == null || snapshot.getLastActivity() < run.oldest.getLastActivity()) {
+                    run.oldest = snapshot;
+                }
+                if (run.samples.size() < SAMPLE_SIZE) {
+                    run.samples.add(snapshot.getPlayerName());
+                }
+                purged.add(snapshot.getPlayerUUID());
+            }
+            if (!run.dryRun && !purged.isEmpty()) {
+                manager.removePlayersData(purged); // Une seule transaction par tranche
+            }
+
+            plugin.getServer().getScheduler().runTaskLater(plugin, () -> processSlice(run), run.sliceInterval);
+        }));
+    }
+
+    /**
+     * Copie un joueur dans le dossier de rétention (thread d'écriture)
+     */
+    private boolean archive(PlayerDataWriter writer, PlayerDataSnapshot snapshot, File folder) {
+        try {
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("impossible de créer " + folder.getPath());
+            }
+            AtomicFiles.write(new File(folder, snapshot.getPlayerUUID() + ".dat"), BinaryPlayerDataCodec.encode(snapshot));
+            writer.getArchive().copyTo(snapshot.getPlayerUUID(), folder);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Archivage de " + snapshot.getPlayerUUID() + " impossible, joueur conservé: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void finish(Run run, Throwable error) {
+        running = false;
+        Report report = new Report(run, error);
+        for (String line : report.describe()) {
+            plugin.getLogger().info(line);
+        }
+        if (run.onFinished != null) {
+            run.onFinished.accept(report);
+        }
+    }
+
+    private void runOnMainThread(Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * État d'un passage en cours (thread principal uniquement)
+     */
+    private static final class Run {
+        private final boolean dryRun;
+        private final int inactiveDays;
+        private final long cutoff;
+        private final int sliceSize;
+        private final long sliceInterval;
+        private final Consumer<Report> onFinished;
+        private final long startTime;
+        private File archiveFolder;
+
+        private List<UUID> players = Collections.emptyList();
+        private int next;
+        private int scanned;
+        private int stale;
+        private int skipped;
+        private PlayerDataSnapshot oldest;
+        private final List<String> samples = new ArrayList<>();
+
+        private Run(boolean dryRun, int inactiveDays, int sliceSize, long sliceInterval, Consumer<Report> onFinished) {
+            this.dryRun = dryRun;
+            this.inactiveDays = inactiveDays;
+            this.startTime = System.currentTimeMillis();
+            this.cutoff = startTime - inactiveDays * DAY_MILLIS;
+            this.sliceSize = sliceSize;
+            this.sliceInterval = sliceInterval;
+            this.onFinished = onFinished;
+        }
+    }
+
+    /**
+     * Bilan d'un passage de rétention
+     */
+    public static final class Report {
+        private final boolean dryRun;
+        private final int inactiveDays;
+        private final int scanned;
+        private final int stale;
+        private final int skipped;
+        private final String oldestName;
+        private final long oldestActivity;
+        private final List<String> samples;
+        private final File archiveFolder;
+        private final long millis;
+        private final String error;
+
+        private Report(Run run, Throwable error) {
+            this.dryRun = run.dryRun;
+            this.inactiveDays = run.inactiveDays;
+            this.scanned = run.scanned;
+            this.stale = run.stale;
+            this.skipped = run.skipped;
+            this.oldestName = run.oldest != null ? run.oldest.getPlayerName() : null;
+            this.oldestActivity = run.oldest != null ? run.oldest.getLastActivity() : 0L;
+            this.samples = List.copyOf(run.samples);
+            this.archiveFolder = run.archiveFolder;
+            this.millis = System.currentTimeMillis() - run.startTime;
+            Throwable cause = error != null && error.getCause() != null ? error.getCause() : error;
+            this.error = cause != null ? cause.getMessage() : null;
+        }
+
+        public boolean isDryRun() { return dryRun; }
+        public int getScanned() { return scanned; }
+        public int getStale() { return stale; }
+        public int getSkipped() { return skipped; }
+        public String getError() { return error; }
+
+        /**
+         * Lignes du rapport (console et commande)
+         */
+        public List<String> describe() {
+            List<String> lines = new ArrayList<>();
+            lines.add((dryRun ? "Simulation de rétention" : "Rétention") + " (inactifs depuis plus de " + inactiveDays + " jours): "
+                    + scanned + " joueur(s) analysé(s), " + stale + (dryRun ? " seraient supprimé(s)" : " supprimé(s)")
+                    + (skipped > 0 ? ", " + skipped + " revenu(s) entre-temps" : "") + ", " + millis + " ms");
+            if (oldestName != null) {
+                lines.add("Plus ancien: " + oldestName + " (dernière activité le "
+                        + new SimpleDateFormat("dd/MM/yyyy").format(new Date(oldestActivity)) + ")");
+            }
+            if (!samples.isEmpty()) {
+                lines.add("Exemples: " + String.join(", ", samples) + (stale > samples.size() ? ", ..." : ""));
+            }
+            if (archiveFolder != null && stale > 0) {
+                lines.add("Copie des joueurs supprimés: " + RETENTION_FOLDER + "/" + archiveFolder.getName());
+            }
+            if (error != null) {
+                lines.add("Passage interrompu: " + error);
+            }
+            return lines;
+        }
+    }
+}
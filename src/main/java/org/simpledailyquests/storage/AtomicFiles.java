@@ -0,0 +1,79 @@
+package org.simpledailyquests.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Écritures de fichiers sans corruption : fichier temporaire, synchronisation sur disque, puis renommage atomique.
+ * Un arrêt brutal laisse soit l'ancien fichier, soit le nouveau, jamais un fichier à moitié écrit.
+ */
+public final class AtomicFiles {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Remplace le contenu d'un fichier de manière atomique
+     */
+    public static void write(File target, byte[] data) throws IOException {
+        File temp = tempFileFor(target);
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        replace(temp, target);
+    }
+
+    /**
+     * Fichier temporaire à utiliser pour préparer {@code target} (même dossier, pour un renommage atomique)
+     */
+    public static File tempFileFor(File target) {
+        return new File(target.getParentFile(), target.getName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Synchronise un fichier déjà écrit puis le renomme atomiquement en {@code target}
+     */
+    public static void replace(File source, File target) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Système de fichiers sans renommage atomique : remplacement simple
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.getParentFile());
+    }
+
+    /**
+     * Synchronise l'entrée de répertoire après un renommage (ignoré sur les systèmes qui ne le permettent pas)
+     */
+    private static void syncDirectory(File directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows ne permet pas d'ouvrir un dossier : le renommage reste atomique
+        }
+    }
+}
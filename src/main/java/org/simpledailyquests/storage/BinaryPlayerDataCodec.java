@@ -0,0 +1,241 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Format binaire compact des données joueur : en-tête versionné, puis blocs préfixés par leur longueur.
+ *
+ * Évolution du schéma : un nouveau champ s'ajoute à la fin de son bloc et incrémente FORMAT_VERSION.
+ * Un lecteur plus ancien ignore la fin des blocs qu'il ne connaît pas ; un lecteur plus récent
+ * utilise la version du fichier pour donner une valeur par défaut aux champs absents.
+ * Les types et raretés sont stockés par ordinal : les enums ne doivent être complétés qu'à la fin.
+ */
+public final class BinaryPlayerDataCodec {
+
+    private static final int MAGIC = 0x53445142; // "SDQB"
+    // 2 : ajout des totaux journaliers de l'historique
+    // 3 : ajout des compteurs de complétions
+    // 4 : ajout de la dernière connexion (fin du bloc joueur)
+    private static final int FORMAT_VERSION = 4;
+
+    private BinaryPlayerDataCodec() {
+    }
+
+    public static byte[] encode(PlayerDataSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream output = new DataOutputStream(bytes);
+        ByteArrayOutputStream block = new ByteArrayOutputStream(64);
+        DataOutputStream blockOutput = new DataOutputStream(block);
+
+        output.writeInt(MAGIC);
+        output.writeShort(FORMAT_VERSION);
+
+        // Bloc joueur
+        blockOutput.writeLong(snapshot.getPlayerUUID().getMostSignificantBits());
+        blockOutput.writeLong(snapshot.getPlayerUUID().getLeastSignificantBits());
+        blockOutput.writeUTF(snapshot.getPlayerName() != null ? snapshot.getPlayerName() : "Unknown");
+        blockOutput.writeByte(Quest.QuestRarity.values().length);
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            blockOutput.writeByte(rarity.ordinal());
+            blockOutput.writeLong(snapshot.getLastReset(rarity));
+        }
+        blockOutput.writeLong(snapshot.getLastSeen());
+        writeBlock(output, block);
+
+        output.writeInt(snapshot.getActiveQuests().size());
+        for (PlayerDataSnapshot.ActiveQuest quest : snapshot.getActiveQuests()) {
+            blockOutput.writeUTF(quest.getQuestId());
+            blockOutput.writeByte(quest.getType().ordinal());
+            blockOutput.writeByte(quest.getRarity().ordinal());
+            blockOutput.writeUTF(quest.getTarget());
+            blockOutput.writeInt(quest.getRequired());
+            blockOutput.writeInt(quest.getProgress());
+            blockOutput.writeLong(quest.getAssignedTime());
+            writeBlock(output, block);
+        }
+
+        output.writeInt(snapshot.getCompletedQuests().size());
+        for (PlayerDataSnapshot.CompletedEntry completed : snapshot.getCompletedQuests()) {
+            blockOutput.writeUTF(completed.getQuestId());
+            blockOutput.writeLong(completed.getCompletionTime());
+            blockOutput.writeByte(completed.getRarity().ordinal());
+            writeBlock(output, block);
+        }
+
+        output.writeInt(snapshot.getRollups().size());
+        for (PlayerDataSnapshot.DailyRollup rollup : snapshot.getRollups()) {
+            blockOutput.writeInt(rollup.getDay());
+            blockOutput.writeByte(rollup.getRarity().ordinal());
+            blockOutput.writeInt(rollup.getCount());
+            writeBlock(output, block);
+        }
+
+        PlayerDataSnapshot.Counters counters = snapshot.getCounters();
+        output.writeBoolean(counters != null);
+        if (counters != null) {
+            blockOutput.writeInt(counters.getTotal());
+            blockOutput.writeByte(counters.getByRarity().size());
+            for (Map.Entry<Quest.QuestRarity, Integer> entry : counters.getByRarity().entrySet()) {
+                blockOutput.writeByte(entry.getKey().ordinal());
+                blockOutput.writeInt(entry.getValue());
+            }
+            blockOutput.writeByte(counters.getByType().size());
+            for (Map.Entry<Quest.QuestType, Integer> entry : counters.getByType().entrySet()) {
+                blockOutput.writeByte(entry.getKey().ordinal());
+                blockOutput.writeInt(entry.getValue());
+            }
+            blockOutput.writeByte(counters.getByDay().size());
+            for (Map.Entry<Integer, Integer> entry : counters.getByDay().entrySet()) {
+                blockOutput.writeInt(entry.getKey());
+                blockOutput.writeInt(entry.getValue());
+            }
+            writeBlock(output, block);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static PlayerDataSnapshot decode(UUID expectedUUID, byte[] data) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Fichier binaire invalide pour " + expectedUUID);
+            }
+            int version = input.readUnsignedShort();
+            if (version < 1) {
+                throw new IOException("Version de format inconnue (" + version + ") pour " + expectedUUID);
+            }
+
+            // Bloc joueur
+            DataInputStream block = readBlock(input);
+            UUID playerUUID = new UUID(block.readLong(), block.readLong());
+            if (!playerUUID.equals(expectedUUID)) {
+                throw new IOException("Le fichier de " + expectedUUID + " contient les données de " + playerUUID);
+            }
+            String name = block.readUTF();
+            Map<Quest.QuestRarity, Long> lastReset = new EnumMap<>(Quest.QuestRarity.class);
+            int resetCount = block.readUnsignedByte();
+            for (int i = 0; i < resetCount; i++) {
+                Quest.QuestRarity rarity = rarityOf(block.readUnsignedByte());
+                long time = block.readLong();
+                if (rarity != null) {
+                    lastReset.put(rarity, time);
+                }
+            }
+            long lastSeen = version >= 4 ? block.readLong() : 0L;
+
+            int activeCount = input.readInt();
+            List<PlayerDataSnapshot.ActiveQuest> activeQuests = new ArrayList<>(activeCount);
+            for (int i = 0; i < activeCount; i++) {
+                block = readBlock(input);
+                String questId = block.readUTF();
+                Quest.QuestType type = typeOf(block.readUnsignedByte());
+                Quest.QuestRarity rarity = rarityOf(block.readUnsignedByte());
+                String target = block.readUTF();
+                int required = block.readInt();
+                int progress = block.readInt();
+                long assignedTime = block.readLong();
+                if (type != null && rarity != null) {
+                    activeQuests.add(new PlayerDataSnapshot.ActiveQuest(questId, type, rarity, target, required, progress, assignedTime));
+                }
+            }
+
+            int completedCount = input.readInt();
+            List<PlayerDataSnapshot.CompletedEntry> completedQuests = new ArrayList<>(completedCount);
+            for (int i = 0; i < completedCount; i++) {
+                block = readBlock(input);
+                String questId = block.readUTF();
+                long completionTime = block.readLong();
+                Quest.QuestRarity rarity = rarityOf(block.readUnsignedByte());
+                if (rarity != null) {
+                    completedQuests.add(new PlayerDataSnapshot.CompletedEntry(questId, completionTime, rarity));
+                }
+            }
+
+            // Absents des fichiers en version 1
+            List<PlayerDataSnapshot.DailyRollup> rollups = new ArrayList<>();
+            if (version >= 2) {
+                int rollupCount = input.readInt();
+                for (int i = 0; i < rollupCount; i++) {
+                    block = readBlock(input);
+                    int day = block.readInt();
+                    Quest.QuestRarity rarity = rarityOf(block.readUnsignedByte());
+                    int count = block.readInt();
+                    if (rarity != null) {
+                        rollups.add(new PlayerDataSnapshot.DailyRollup(day, rarity, count));
+                    }
+                }
+            }
+
+            // Absents des fichiers en version 1 et 2 : recalculés depuis l'historique au chargement
+            PlayerDataSnapshot.Counters counters = null;
+            if (version >= 3 && input.readBoolean()) {
+                counters = readCounters(readBlock(input));
+            }
+
+            return new PlayerDataSnapshot(playerUUID, name, 0, lastReset, activeQuests, completedQuests,
+                    rollups, Collections.emptyList(), counters, lastSeen);
+        } catch (EOFException e) {
+            throw new IOException("Fichier binaire tronqué pour " + expectedUUID, e);
+        }
+    }
+
+    private static PlayerDataSnapshot.Counters readCounters(DataInputStream block) throws IOException {
+        int total = block.readInt();
+        Map<Quest.QuestRarity, Integer> byRarity = new EnumMap<>(Quest.QuestRarity.class);
+        int rarityCount = block.readUnsignedByte();
+        for (int i = 0; i < rarityCount; i++) {
+            Quest.QuestRarity rarity = rarityOf(block.readUnsignedByte());
+            int count = block.readInt();
+            if (rarity != null) {
+                byRarity.put(rarity, count);
+            }
+        }
+        Map<Quest.QuestType, Integer> byType = new EnumMap<>(Quest.QuestType.class);
+        int typeCount = block.readUnsignedByte();
+        for (int i = 0; i < typeCount; i++) {
+            Quest.QuestType type = typeOf(block.readUnsignedByte());
+            int count = block.readInt();
+            if (type != null) {
+                byType.put(type, count);
+            }
+        }
+        Map<Integer, Integer> byDay = new HashMap<>();
+        int dayCount = block.readUnsignedByte();
+        for (int i = 0; i < dayCount; i++) {
+            byDay.put(block.readInt(), block.readInt());
+        }
+        return new PlayerDataSnapshot.Counters(total, byRarity, byType, byDay);
+    }
+
+    /**
+     * Écrit un bloc préfixé par sa longueur puis vide le tampon du bloc
+     */
+    private static void writeBlock(DataOutputStream output, ByteArrayOutputStream block) throws IOException {
+        output.writeShort(block.size());
+        block.writeTo(output);
+        block.reset();
+    }
+
+    /**
+     * Lit un bloc entier : les champs ajoutés par une version plus récente sont ignorés
+     */
+    private static DataInputStream readBlock(DataInputStream input) throws IOException {
+        byte[] block = new byte[input.readUnsignedShort()];
+        input.readFully(block);
+        return new DataInputStream(new ByteArrayInputStream(block));
+    }
+
+    private static Quest.QuestRarity rarityOf(int ordinal) {
+        Quest.QuestRarity[] values = Quest.QuestRarity.values();
+        return ordinal < values.length ? values[ordinal] : null;
+    }
+
+    private static Quest.QuestType typeOf(int ordinal) {
+        Quest.QuestType[] values = Quest.QuestType.values();
+        return ordinal < values.length ? values[ordinal] : null;
+    }
+}
@@ -0,0 +1,31 @@
+package org.simpledailyquests.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stockage binaire compact : un fichier playerdata/<uuid>.dat par joueur (voir {@link BinaryPlayerDataCodec})
+ */
+public class BinaryPlayerDataStorage extends FilePlayerDataStorage {
+
+    public BinaryPlayerDataStorage(Logger logger, File folder) {
+        super(logger, folder, ".dat");
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    protected byte[] encode(PlayerDataSnapshot snapshot) throws IOException {
+        return BinaryPlayerDataCodec.encode(snapshot);
+    }
+
+    @Override
+    protected PlayerDataSnapshot decode(UUID playerUUID, byte[] data) throws IOException {
+        return BinaryPlayerDataCodec.decode(playerUUID, data);
+    }
+}
@@ -0,0 +1,264 @@
+package org.simpledailyquests.storage;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Base des stockages à un fichier par joueur (dossier/<uuid>.<extension>).
+ * Les sous-classes ne définissent que l'encodage d'un snapshot.
+ */
+public abstract class FilePlayerDataStorage implements PlayerDataStorage {
+
+    private static final String STAGING_SUFFIX = ".restore";
+    private static final String PREVIOUS_SUFFIX = ".previous";
+
+    protected final Logger logger;
+    private final File folder;
+    private final String extension;
+
+    protected FilePlayerDataStorage(Logger logger, File folder, String extension) {
+        this.logger = logger;
+        this.folder = folder;
+        this.extension = extension;
+    }
+
+    /**
+     * Encode les données d'un joueur dans le format du fichier
+     */
+    protected abstract byte[] encode(PlayerDataSnapshot snapshot) throws IOException;
+
+    /**
+     * Décode le contenu d'un fichier joueur
+     */
+    protected abstract PlayerDataSnapshot decode(UUID playerUUID, byte[] data) throws IOException;
+
+    @Override
+    public void init() throws IOException {
+        // Arrêt brutal entre les deux renommages d'une restauration : le dossier précédent est remis en place
+        File previous = siblingFolder(PREVIOUS_SUFFIX);
+        if (!folder.exists() && previous.isDirectory()) {
+            logger.warning("Restauration interrompue : " + previous.getName() + " est remis en place.");
+            moveFolder(previous, folder);
+        }
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + folder.getPath());
+        }
+    }
+
+    @Override
+    public PlayerDataSnapshot load(UUID playerUUID) throws IOException {
+        File file = getPlayerFile(playerUUID);
+        if (!file.exists()) {
+            return null;
+        }
+        return decode(playerUUID, Files.readAllBytes(file.toPath()));
+    }
+
+    @Override
+    public List<UUID> listPlayers() {
+        List<UUID> players = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) {
+            return players;
+        }
+
+        for (File file : files) {
+            String uuidString = file.getName().substring(0, file.getName().length() - extension.length());
+            try {
+                players.add(UUID.fromString(uuidString));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Fichier de joueur ignoré (nom invalide): " + file.getName());
+            }
+        }
+        return players;
+    }
+
+    @Override
+    public void save(PlayerDataSnapshot snapshot) throws IOException {
+        AtomicFiles.write(getPlayerFile(snapshot.getPlayerUUID()), encode(snapshot));
+    }
+
+    @Override
+    public void saveBatch(Collection<PlayerDataSnapshot> snapshots) throws IOException {
+        int failed = 0;
+        for (PlayerDataSnapshot snapshot : snapshots) {
+            try {
+                save(snapshot);
+            } catch (IOException e) {
+                logger.severe("Erreur lors de la sauvegarde des données de " + snapshot.getPlayerUUID() + ": " + e.getMessage());
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            throw new IOException(failed + " fichier(s) joueur n'ont pas pu être écrits");
+        }
+    }
+
+    @Override
+    public void delete(UUID playerUUID) throws IOException {
+        File file = getPlayerFile(playerUUID);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Impossible de supprimer " + file.getName());
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<UUID> playerUUIDs) throws IOException {
+        int failed = 0;
+        for (UUID playerUUID : playerUUIDs) {
+            try {
+                delete(playerUUID);
+            } catch (IOException e) {
+                logger.warning(e.getMessage());
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            throw new IOException(failed + " fichier(s) joueur n'ont pas pu être supprimés");
+        }
+    }
+
+    @Override
+    public void backup(File target) throws IOException {
+        File temp = AtomicFiles.tempFileFor(target);
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            for (UUID playerUUID : listPlayers()) {
+                File file = getPlayerFile(playerUUID);
+                if (!file.exists()) {
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(file.getName()));
+                Files.copy(file.toPath(), zip);
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        AtomicFiles.replace(temp, target);
+    }
+
+    /**
+     * Restauration en bloc : la sauvegarde est extraite et vérifiée dans un dossier voisin, puis les deux dossiers
+     * sont échangés par renommage. Un échec laisse le dossier actuel intact ; les joueurs absents de la sauvegarde
+     * (qui n'existaient pas encore) disparaissent avec l'ancien dossier.
+     */
+    @Override
+    public void restore(File source) throws IOException {
+        File staging = siblingFolder(STAGING_SUFFIX);
+        File previous = siblingFolder(PREVIOUS_SUFFIX);
+        deleteFolder(staging); // Reste d'une restauration interrompue
+        deleteFolder(previous);
+        if (!staging.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + staging.getPath());
+        }
+
+        try {
+            try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    // Seul le nom est conservé : une entrée ne peut pas sortir du dossier des joueurs
+                    String name = new File(entry.getName()).getName();
+                    if (entry.isDirectory() || !name.endsWith(extension)) {
+                        continue;
+                    }
+                    byte[] data = zip.readAllBytes();
+                    verify(name, data);
+                    AtomicFiles.write(new File(staging, name), data);
+                }
+            }
+
+            // Les fichiers d'un autre format rangés dans le même dossier sont conservés
+            File[] others = folder.listFiles((dir, name) -> !name.endsWith(extension));
+            if (others != null) {
+                for (File other : others) {
+                    if (other.isFile()) {
+                        Files.copy(other.toPath(), new File(staging, other.getName()).toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+            }
+
+            moveFolder(folder, previous);
+        } catch (IOException e) {
+            deleteFolder(staging);
+            throw e;
+        }
+
+        try {
+            moveFolder(staging, folder);
+        } catch (IOException e) {
+            moveFolder(previous, folder);
+            deleteFolder(staging);
+            throw e;
+        }
+        deleteFolder(previous);
+    }
+
+    /**
+     * Vérifie qu'une entrée de la sauvegarde est un fichier joueur lisible
+     */
+    private void verify(String name, byte[] data) throws IOException {
+        UUID playerUUID;
+        try {
+            playerUUID = UUID.fromString(name.substring(0, name.length() - extension.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Entrée invalide dans la sauvegarde: " + name);
+        }
+        try {
+            if (decode(playerUUID, data) == null) {
+                throw new IOException("Données illisibles");
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Entrée illisible dans la sauvegarde (" + name + "): " + e.getMessage(), e);
+        }
+    }
+
+    private File siblingFolder(String suffix) {
+        return new File(folder.getAbsoluteFile().getParentFile(), folder.getName() + suffix);
+    }
+
+    private static void moveFolder(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath());
+        }
+    }
+
+    private void deleteFolder(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteFolder(file);
+                } else if (!file.delete()) {
+                    logger.warning("Impossible de supprimer " + file.getPath());
+                }
+            }
+        }
+        if (directory.exists() && !directory.delete()) {
+            logger.warning("Impossible de supprimer " + directory.getPath());
+        }
+    }
+
+    @Override
+    public void close() {
+        // Aucune ressource ouverte entre deux écritures
+    }
+
+    /**
+     * Obtient le fichier de données d'un joueur
+     */
+    protected File getPlayerFile(UUID playerUUID) {
+        return new File(folder, playerUUID.toString() + extension);
+    }
+}
@@ -0,0 +1,418 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archive sur disque du détail des quêtes terminées sorties de la fenêtre chaude, lue uniquement à la demande.
+ * Par joueur :
+ * <ul>
+ *     <li>history/&lt;uuid&gt;.hist : queue en ajout seul des dernières complétions, non compressée</li>
+ *     <li>history/&lt;uuid&gt;.hblk : blocs compressés scellés à partir de la queue, triés par date</li>
+ *     <li>history/&lt;uuid&gt;.hidx : index des blocs (position et période couverte)</li>
+ * </ul>
+ * Une lecture par période ne décompresse que les blocs qui la recouvrent.
+ * Les anciennes archives (queue seule) sont scellées à leur prochain ajout.
+ */
+public class HistoryArchive {
+
+    private static final String TAIL_EXTENSION = ".hist";
+    private static final String BLOCK_EXTENSION = ".hblk";
+    private static final String INDEX_EXTENSION = ".hidx";
+
+    private static final int BLOCK_MAGIC = 0x44514842; // "DQHB"
+    private static final int HEADER_SIZE = 36;
+    private static final int INDEX_ENTRY_SIZE = 32;
+    private static final int BLOCK_ENTRIES = 512;
+    private static final long TAIL_SEAL_BYTES = 16 * 1024;
+
+    private final Logger logger;
+    private final File directory;
+
+    public HistoryArchive(Logger logger, File directory) {
+        this.logger = logger;
+        this.directory = directory;
+    }
+
+    /**
+     * Ajoute des complétions à l'archive d'un joueur et synchronise le fichier sur disque.
+     * La queue est scellée en blocs compressés dès qu'elle dépasse quelques kilo-octets.
+     */
+    public synchronized void append(UUID playerUUID, List<PlayerDataSnapshot.CompletedEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + directory.getName());
+        }
+
+        File tail = getFile(playerUUID, TAIL_EXTENSION);
+        try (FileOutputStream file = new FileOutputStream(tail, true);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (PlayerDataSnapshot.CompletedEntry entry : entries) {
+                output.writeLong(entry.getCompletionTime());
+                output.writeByte(entry.getRarity().ordinal());
+                output.writeUTF(entry.getQuestId());
+            }
+            output.flush();
+            file.getFD().sync();
+        }
+
+        if (tail.length() >= TAIL_SEAL_BYTES) {
+            seal(playerUUID);
+        }
+    }
+
+    /**
+     * Lit les complétions archivées d'un joueur entre deux dates (incluses), triées par date
+     */
+    public synchronized List<PlayerDataSnapshot.CompletedEntry> read(UUID playerUUID, long from, long to) throws IOException {
+        List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>();
+        File blocks = getFile(playerUUID, BLOCK_EXTENSION);
+        if (blocks.exists()) {
+            try (RandomAccessFile file = new RandomAccessFile(blocks, "r")) {
+                for (BlockInfo block : loadIndex(playerUUID)) {
+                    if (block.maxTime >= from && block.minTime <= to) {
+                        for (PlayerDataSnapshot.CompletedEntry entry : readBlock(file, block)) {
+                            if (entry.getCompletionTime() >= from && entry.getCompletionTime() <= to) {
+                                entries.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Un arrêt brutal pendant le scellement peut laisser la queue déjà copiée dans les blocs
+        Set<String> sealed = new HashSet<>();
+        for (PlayerDataSnapshot.CompletedEntry entry : entries) {
+            sealed.add(keyOf(entry));
+        }
+        for (PlayerDataSnapshot.CompletedEntry entry : readTail(playerUUID)) {
+            if (entry.getCompletionTime() >= from && entry.getCompletionTime() <= to && !sealed.contains(keyOf(entry))) {
+                entries.add(entry);
+            }
+        }
+
+        entries.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime));
+        return entries;
+    }
+
+    /**
+     * Copie l'archive d'un joueur dans un autre dossier (sans effet s'il n'en a pas)
+     */
+    public synchronized void copyTo(UUID playerUUID, File targetFolder) throws IOException {
+        for (String extension : new String[]{TAIL_EXTENSION, BLOCK_EXTENSION, INDEX_EXTENSION}) {
+            File file = getFile(playerUUID, extension);
+            if (file.exists()) {
+                Files.copy(file.toPath(), new File(targetFolder, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Supprime l'archive d'un joueur
+     */
+    public synchronized void delete(UUID playerUUID) {
+        for (String extension : new String[]{TAIL_EXTENSION, BLOCK_EXTENSION, INDEX_EXTENSION}) {
+            File file = getFile(playerUUID, extension);
+            if (file.exists() && !file.delete()) {
+                logger.warning("Impossible de supprimer " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Scelle la queue en blocs compressés : blocs écrits et synchronisés, puis index, puis suppression de la queue
+     */
+    private void seal(UUID playerUUID) throws IOException {
+        List<PlayerDataSnapshot.CompletedEntry> pending = readTail(playerUUID);
+        File blocks = getFile(playerUUID, BLOCK_EXTENSION);
+        List<BlockInfo> index = blocks.exists() ? loadIndex(playerUUID) : new ArrayList<>();
+
+        pending.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime));
+
+        // Queue déjà scellée avant un arrêt brutal : ses entrées sont dans les blocs qui recouvrent sa période
+        // (une grande queue occupe plusieurs blocs)
+        if (!index.isEmpty() && !pending.isEmpty()) {
+            long minTime = pending.get(0).getCompletionTime();
+            long maxTime = pending.get(pending.size() - 1).getCompletionTime();
+            Set<String> sealed = new HashSet<>();
+            try (RandomAccessFile file = new RandomAccessFile(blocks, "r")) {
+                for (BlockInfo block : index) {
+                    if (block.maxTime >= minTime && block.minTime <= maxTime) {
+                        for (PlayerDataSnapshot.CompletedEntry entry : readBlock(file, block)) {
+                            sealed.add(keyOf(entry));
+                        }
+                    }
+                }
+            }
+            pending.removeIf(entry -> sealed.contains(keyOf(entry)));
+        }
+
+        try (FileOutputStream file = new FileOutputStream(blocks, true)) {
+            long offset = blocks.length();
+            for (int start = 0; start < pending.size(); start += BLOCK_ENTRIES) {
+                List<PlayerDataSnapshot.CompletedEntry> chunk = pending.subList(start, Math.min(pending.size(), start + BLOCK_ENTRIES));
+                byte[] block = encodeBlock(chunk);
+                file.write(block);
+                index.add(new BlockInfo(offset, block.length - HEADER_SIZE, chunk.size(),
+                        chunk.get(0).getCompletionTime(), chunk.get(chunk.size() - 1).getCompletionTime()));
+                offset += block.length;
+            }
+            file.getFD().sync();
+        }
+
+        writeIndex(playerUUID, index);
+        Files.deleteIfExists(getFile(playerUUID, TAIL_EXTENSION).toPath());
+    }
+
+    /**
+     * Bloc : en-tête (nombre d'entrées, période, tailles, CRC) puis entrées compressées
+     */
+    private static byte[] encodeBlock(List<PlayerDataSnapshot.CompletedEntry> entries) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(entries.size() * 24);
+        try (DataOutputStream output = new DataOutputStream(raw)) {
+            long previous = 0;
+            for (PlayerDataSnapshot.CompletedEntry entry : entries) {
+                output.writeLong(entry.getCompletionTime() - previous); // Écarts : plus compressibles
+                output.writeByte(entry.getRarity().ordinal());
+                output.writeUTF(entry.getQuestId());
+                previous = entry.getCompletionTime();
+            }
+        }
+        byte[] data = raw.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 64);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ByteArrayOutputStream block = new ByteArrayOutputStream(HEADER_SIZE + compressed.size());
+        try (DataOutputStream output = new DataOutputStream(block)) {
+            output.writeInt(BLOCK_MAGIC);
+            output.writeInt(entries.size());
+            output.writeLong(entries.get(0).getCompletionTime());
+            output.writeLong(entries.get(entries.size() - 1).getCompletionTime());
+            output.writeInt(data.length);
+            output.writeInt(compressed.size());
+            output.writeInt((int) crc.getValue());
+            compressed.writeTo(output);
+        }
+        return block.toByteArray();
+    }
+
+    /**
+     * Lit et décompresse un seul bloc
+     */
+    private List<PlayerDataSnapshot.CompletedEntry> readBlock(RandomAccessFile file, BlockInfo block) throws IOException {
+        file.seek(block.offset);
+        byte[] header = new byte[HEADER_SIZE];
+        file.readFully(header);
+        DataInputStream headerInput = new DataInputStream(new ByteArrayInputStream(header));
+        if (headerInput.readInt() != BLOCK_MAGIC) {
+            throw new IOException("Bloc d'archive invalide à la position " + block.offset);
+        }
+        int count = headerInput.readInt();
+        headerInput.readLong();
+        headerInput.readLong();
+        int rawLength = headerInput.readInt();
+        int compressedLength = headerInput.readInt();
+        int expectedCrc = headerInput.readInt();
+
+        byte[] compressed = new byte[compressedLength];
+        file.readFully(compressed);
+        byte[] data = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(data, read, rawLength - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != rawLength) {
+                throw new IOException("Bloc d'archive tronqué à la position " + block.offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloc d'archive illisible à la position " + block.offset + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Bloc d'archive corrompu à la position " + block.offset);
+        }
+
+        Quest.QuestRarity[] rarities = Quest.QuestRarity.values();
+        List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>(count);
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+            long time = 0;
+            for (int i = 0; i < count; i++) {
+                time += input.readLong();
+                int rarity = input.readUnsignedByte();
+                String questId = input.readUTF();
+                if (rarity < rarities.length) {
+                    entries.add(new PlayerDataSnapshot.CompletedEntry(questId, time, rarities[rarity]));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Lit les entrées non scellées (format d'origine de l'archive)
+     */
+    private List<PlayerDataSnapshot.CompletedEntry> readTail(UUID playerUUID) throws IOException {
+        File file = getFile(playerUUID, TAIL_EXTENSION);
+        List<PlayerDataSnapshot.CompletedEntry> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+
+        Quest.QuestRarity[] rarities = Quest.QuestRarity.values();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                long time;
+                try {
+                    time = input.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                int rarity = input.readUnsignedByte();
+                String questId = input.readUTF();
+                if (rarity < rarities.length) {
+                    entries.add(new PlayerDataSnapshot.CompletedEntry(questId, time, rarities[rarity]));
+                }
+            }
+        } catch (EOFException e) {
+            logger.warning("Dernière entrée de l'archive de " + playerUUID + " incomplète, ignorée.");
+        }
+        return entries;
+    }
+
+    /**
+     * Charge l'index des blocs. S'il ne correspond pas au fichier de blocs (arrêt brutal pendant un scellement),
+     * il est reconstruit à partir des en-têtes et un bloc incomplet en fin de fichier est retiré.
+     */
+    private List<BlockInfo> loadIndex(UUID playerUUID) throws IOException {
+        File blocks = getFile(playerUUID, BLOCK_EXTENSION);
+        File indexFile = getFile(playerUUID, INDEX_EXTENSION);
+        List<BlockInfo> index = new ArrayList<>();
+
+        if (indexFile.exists() && indexFile.length() % INDEX_ENTRY_SIZE == 0) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                for (long i = indexFile.length() / INDEX_ENTRY_SIZE; i > 0; i--) {
+                    index.add(new BlockInfo(input.readLong(), input.readInt(), input.readInt(), input.readLong(), input.readLong()));
+                }
+            }
+            long end = index.isEmpty() ? 0 : index.get(index.size() - 1).end();
+            if (end == blocks.length()) {
+                return index;
+            }
+        }
+
+        index = rebuildIndex(playerUUID, blocks);
+        writeIndex(playerUUID, index);
+        return index;
+    }
+
+    private List<BlockInfo> rebuildIndex(UUID playerUUID, File blocks) throws IOException {
+        List<BlockInfo> index = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(blocks, "rw")) {
+            long offset = 0;
+            long length = file.length();
+            while (offset + HEADER_SIZE <= length) {
+                file.seek(offset);
+                if (file.readInt() != BLOCK_MAGIC) {
+                    break;
+                }
+                int count = file.readInt();
+                long minTime = file.readLong();
+                long maxTime = file.readLong();
+                file.readInt();
+                int compressedLength = file.readInt();
+                BlockInfo block = new BlockInfo(offset, compressedLength, count, minTime, maxTime);
+                if (block.end() > length) {
+                    break;
+                }
+                index.add(block);
+                offset = block.end();
+            }
+            if (offset < length) {
+                logger.warning("Bloc incomplet retiré de l'archive de " + playerUUID + " (" + (length - offset) + " octets).");
+                file.setLength(offset);
+            }
+        }
+        return index;
+    }
+
+    private void writeIndex(UUID playerUUID, List<BlockInfo> index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(index.size() * INDEX_ENTRY_SIZE);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            for (BlockInfo block : index) {
+                output.writeLong(block.offset);
+                output.writeInt(block.compressedLength);
+                output.writeInt(block.count);
+                output.writeLong(block.minTime);
+                output.writeLong(block.maxTime);
+            }
+        }
+        AtomicFiles.write(getFile(playerUUID, INDEX_EXTENSION), bytes.toByteArray());
+    }
+
+    private File getFile(UUID playerUUID, String extension) {
+        return new File(directory, playerUUID.toString() + extension);
+    }
+
+    private static String keyOf(PlayerDataSnapshot.CompletedEntry entry) {
+        return entry.getQuestId() + "@" + entry.getCompletionTime();
+    }
+
+    /**
+     * Entrée de l'index : position du bloc et période couverte
+     */
+    private static final class BlockInfo {
+        private final long offset;
+        private final int compressedLength;
+        private final int count;
+        private final long minTime;
+        private final long maxTime;
+
+        private BlockInfo(long offset, int compressedLength, int count, long minTime, long maxTime) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.count = count;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+        private long end() {
+            return offset + HEADER_SIZE + compressedLength;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Migration en flux d'un ancien players-data.yml vers un stockage.
+ * Le fichier est lu événement par événement, un joueur à la fois, sans jamais construire l'arbre complet.
+ * Les joueurs sont écrits par lots ; chaque lot est relu et comparé (nombre d'enregistrements et sommes de contrôle),
+ * puis la position atteinte est enregistrée pour reprendre après une interruption.
+ *
+ * Utilisable serveur arrêté :
+ * java -cp SimpleDailyQuests.jar:paper.jar org.simpledailyquests.storage.LegacyYamlMigrator
+ * &lt;players-data.yml&gt; &lt;dossier du plugin&gt; &lt;yaml|binary|sqlite&gt; [taille-lot]
+ */
+public final class LegacyYamlMigrator {
+
+    private static final String PROGRESS_SUFFIX = ".progress";
+    private static final Resolver RESOLVER = new Resolver();
+
+    private final Logger logger;
+    private final File source;
+    private final PlayerDataStorage target;
+    private final File progressFile;
+    private final int batchSize;
+
+    /**
+     * @param progressFolder dossier du fichier de reprise (un fichier par couple source/cible)
+     */
+    public LegacyYamlMigrator(Logger logger, File source, PlayerDataStorage target, File progressFolder, int batchSize) {
+        this.logger = logger;
+        this.source = source;
+        this.target = target;
+        this.progressFile = new File(progressFolder, source.getName() + "-" + target.getName() + PROGRESS_SUFFIX);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Migre le fichier vers le stockage cible (déjà initialisé), en reprenant après la dernière position validée
+     */
+    public Result run() throws IOException {
+        if (!source.isFile()) {
+            throw new IOException("Fichier introuvable: " + source.getPath());
+        }
+
+        long start = System.nanoTime();
+        Progress progress = loadProgress();
+        long resumedFrom = progress.position;
+        if (resumedFrom > 0) {
+            logger.info("Reprise de la migration de " + source.getName() + " après " + resumedFrom + " entrée(s).");
+        }
+
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE); // La limite par défaut (3 Mo) vaut pour tout le flux
+        options.setAllowDuplicateKeys(true);
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8))) {
+            Iterator<Event> events = new Yaml(options).parse(reader).iterator();
+            if (!seekPlayers(events)) {
+                logger.warning("Aucune section players dans " + source.getName() + ".");
+            } else {
+                List<PlayerDataSnapshot> batch = new ArrayList<>(batchSize);
+                long entry = 0;
+                while (true) {
+                    Event keyEvent = events.next();
+                    if (keyEvent instanceof MappingEndEvent) {
+                        break;
+                    }
+                    if (entry < progress.position) {
+                        // Déjà migré lors d'une exécution précédente : parcouru sans être construit
+                        skipValue(events, keyEvent);
+                        skipValue(events, events.next());
+                        entry++;
+                        continue;
+                    }
+                    String key = String.valueOf(readValue(events, keyEvent));
+                    Object value = readValue(events, events.next());
+                    entry++;
+
+                    PlayerDataSnapshot snapshot = convert(key, value);
+                    if (snapshot == null) {
+                        progress.invalid++;
+                    } else {
+                        batch.add(snapshot);
+                    }
+
+                    if (batch.size() >= batchSize) {
+                        writeBatch(batch, progress, entry);
+                    }
+                }
+                writeBatch(batch, progress, entry);
+            }
+        }
+
+        deleteQuietly(progressFile);
+        return new Result(progress.players, progress.invalid, resumedFrom, progress.checksum,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Écrit un lot, le relit pour le vérifier, puis enregistre la nouvelle position
+     */
+    private void writeBatch(List<PlayerDataSnapshot> batch, Progress progress, long position) throws IOException {
+        if (!batch.isEmpty()) {
+            target.saveBatch(batch);
+
+            long batchChecksum = 0;
+            int verified = 0;
+            for (PlayerDataSnapshot snapshot : batch) {
+                PlayerDataSnapshot written = target.load(snapshot.getPlayerUUID());
+                long expected = checksum(snapshot);
+                if (written == null || checksum(written) != expected) {
+                    throw new IOException("Vérification échouée pour " + snapshot.getPlayerUUID()
+                            + " : données relues différentes des données migrées");
+                }
+                batchChecksum += expected;
+                verified++;
+            }
+            if (verified != batch.size()) {
+                throw new IOException("Lot incomplet: " + verified + " joueur(s) relu(s) sur " + batch.size());
+            }
+
+            progress.players += verified;
+            progress.checksum += batchChecksum;
+            batch.clear();
+        }
+
+        progress.position = position;
+        saveProgress(progress);
+    }
+
+    /**
+     * Avance jusqu'au début de la table players (false si elle est absente)
+     */
+    private static boolean seekPlayers(Iterator<Event> events) throws IOException {
+        Event event = events.next();
+        while (event instanceof StreamStartEvent || event instanceof DocumentStartEvent) {
+            event = events.next();
+        }
+        if (!(event instanceof MappingStartEvent)) {
+            return false;
+        }
+
+        while (true) {
+            Event keyEvent = events.next();
+            if (keyEvent instanceof MappingEndEvent) {
+                return false;
+            }
+            String key = String.valueOf(readValue(events, keyEvent));
+            Event valueEvent = events.next();
+            if (key.equals("players") && valueEvent instanceof MappingStartEvent) {
+                return true;
+            }
+            readValue(events, valueEvent);
+        }
+    }
+
+    /**
+     * Construit la valeur qui commence par {@code first} (scalaire, liste ou table)
+     */
+    private static Object readValue(Iterator<Event> events, Event first) throws IOException {
+        if (first instanceof ScalarEvent) {
+            return resolveScalar((ScalarEvent) first);
+        }
+        if (first instanceof SequenceStartEvent) {
+            List<Object> list = new ArrayList<>();
+            for (Event event = events.next(); !(event instanceof SequenceEndEvent); event = events.next()) {
+                list.add(readValue(events, event));
+            }
+            return list;
+        }
+        if (first instanceof MappingStartEvent) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Event event = events.next(); !(event instanceof MappingEndEvent); event = events.next()) {
+                String key = String.valueOf(readValue(events, event));
+                map.put(key, readValue(events, events.next()));
+            }
+            return map;
+        }
+        throw new IOException("Élément YAML non pris en charge: " + first);
+    }
+
+    /**
+     * Passe la valeur qui commence par {@code first} sans la construire
+     */
+    private static void skipValue(Iterator<Event> events, Event first) {
+        if (!(first instanceof CollectionStartEvent)) {
+            return; // Scalaire ou alias
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event event = events.next();
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Type d'un scalaire selon les règles implicites de YAML (les valeurs entre guillemets restent des textes)
+     */
+    private static Object resolveScalar(ScalarEvent event) {
+        String value = event.getValue();
+        if (!event.getImplicit().canOmitTagInPlainScalar()) {
+            return value;
+        }
+
+        Tag tag = RESOLVER.resolve(NodeId.scalar, value, true);
+        try {
+            if (tag.equals(Tag.INT)) {
+                long number = Long.parseLong(value.replace("_", ""));
+                return number == (int) number ? (Object) (int) number : (Object) number;
+            }
+            if (tag.equals(Tag.FLOAT)) {
+                return Double.parseDouble(value.replace("_", ""));
+            }
+        } catch (NumberFormatException e) {
+            return value;
+        }
+        if (tag.equals(Tag.BOOL)) {
+            return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("on");
+        }
+        if (tag.equals(Tag.NULL)) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Convertit l'entrée d'un joueur, ou null si elle est invalide
+     */
+    private PlayerDataSnapshot convert(String uuidString, Object value) {
+        UUID playerUUID;
+        try {
+            playerUUID = UUID.fromString(uuidString);
+        } catch (IllegalArgumentException e) {
+            logger.warning("UUID invalide ignoré lors de la migration: " + uuidString);
+            return null;
+        }
+        if (!(value instanceof Map)) {
+            logger.warning("Entrée ignorée lors de la migration (pas une section): " + uuidString);
+            return null;
+        }
+
+        // Section temporaire limitée à ce joueur, pour réutiliser le lecteur YAML du stockage
+        ConfigurationSection section = new MemoryConfiguration().createSection("player", (Map<?, ?>) value);
+        return YamlPlayerDataStorage.read(playerUUID, section, logger);
+    }
+
+    /**
+     * Somme de contrôle d'un joueur, indépendante de l'ordre de stockage des quêtes
+     */
+    static long checksum(PlayerDataSnapshot snapshot) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataOutputStream output = new DataOutputStream(new CheckedOutputStream(OutputStream.nullOutputStream(), crc))) {
+            output.writeUTF(snapshot.getPlayerUUID().toString());
+            output.writeUTF(String.valueOf(snapshot.getPlayerName()));
+            for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+                output.writeLong(snapshot.getLastReset(rarity));
+            }
+
+            List<PlayerDataSnapshot.ActiveQuest> active = new ArrayList<>(snapshot.getActiveQuests());
+            active.sort(Comparator.comparing(PlayerDataSnapshot.ActiveQuest::getQuestId));
+            for (PlayerDataSnapshot.ActiveQuest quest : active) {
+                output.writeUTF(quest.getQuestId());
+                output.writeUTF(quest.getType().name());
+                output.writeUTF(quest.getRarity().name());
+                output.writeUTF(quest.getTarget());
+                output.writeInt(quest.getRequired());
+                output.writeInt(quest.getProgress());
+                output.writeLong(quest.getAssignedTime());
+            }
+
+            List<PlayerDataSnapshot.CompletedEntry> completed = new ArrayList<>(snapshot.getCompletedQuests());
+            completed.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime)
+                    .thenComparing(PlayerDataSnapshot.CompletedEntry::getQuestId));
+            for (PlayerDataSnapshot.CompletedEntry entry : completed) {
+                output.writeUTF(entry.getQuestId());
+                output.writeLong(entry.getCompletionTime());
+                output.writeUTF(entry.getRarity().name());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private Progress loadProgress() throws IOException {
+        Progress progress = new Progress();
+        if (!progressFile.exists()) {
+            return progress;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(progressFile)) {
+            properties.load(input);
+        }
+        // La position n'a de sens que pour le même fichier source
+        if (Long.parseLong(properties.getProperty("source-size", "-1")) != source.length()
+                || Long.parseLong(properties.getProperty("source-modified", "-1")) != source.lastModified()) {
+            throw new IOException(source.getName() + " a changé depuis la migration interrompue ; supprimez "
+                    + progressFile.getName() + " pour recommencer depuis le début");
+        }
+        progress.position = Long.parseLong(properties.getProperty("position", "0"));
+        progress.players = Integer.parseInt(properties.getProperty("players", "0"));
+        progress.invalid = Integer.parseInt(properties.getProperty("invalid", "0"));
+        progress.checksum = Long.parseLong(properties.getProperty("checksum", "0"));
+        return progress;
+    }
+
+    private void saveProgress(Progress progress) throws IOException {
+        File folder = progressFile.getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + folder.getPath());
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("source-size", String.valueOf(source.length()));
+        properties.setProperty("source-modified", String.valueOf(source.lastModified()));
+        properties.setProperty("position", String.valueOf(progress.position));
+        properties.setProperty("players", String.valueOf(progress.players));
+        properties.setProperty("invalid", String.valueOf(progress.invalid));
+        properties.setProperty("checksum", String.valueOf(progress.checksum));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        properties.store(bytes, "Migration de " + source.getName() + " vers " + target.getName());
+        AtomicFiles.write(progressFile, bytes.toByteArray());
+    }
+
+    private void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warning("Impossible de supprimer " + file.getName());
+        }
+    }
+
+    /**
+     * Point d'entrée autonome (serveur arrêté)
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: java -cp SimpleDailyQuests.jar:paper.jar " + LegacyYamlMigrator.class.getName()
+                    + " <players-data.yml> <dossier du plugin> <yaml|binary|sqlite> [taille-lot]");
+            System.exit(2);
+        }
+
+        Logger logger = Logger.getLogger("SimpleDailyQuests");
+        File dataFolder = new File(args[1]);
+        PlayerDataStorage target;
+        switch (args[2].toLowerCase()) {
+            case "sqlite":
+                target = new SqlitePlayerDataStorage(logger, new File(dataFolder, "players.db"));
+                break;
+            case "binary":
+                target = new BinaryPlayerDataStorage(logger, new File(dataFolder, "playerdata"));
+                break;
+            case "yaml":
+                target = new YamlPlayerDataStorage(logger, new File(dataFolder, "playerdata"));
+                break;
+            default:
+                System.err.println("Type de stockage inconnu: " + args[2]);
+                System.exit(2);
+                return;
+        }
+
+        try {
+            int batchSize = args.length >= 4 ? Integer.parseInt(args[3]) : 500;
+            target.init();
+            Result result = new LegacyYamlMigrator(logger, new File(args[0]), target, dataFolder, batchSize).run();
+            System.out.println(result.describe());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Migration interrompue: " + e.getMessage() + " (relancez la commande pour reprendre)");
+            System.exit(1);
+        } finally {
+            target.close();
+        }
+    }
+
+    private static final class Progress {
+        private long position;
+        private int players;
+        private int invalid;
+        private long checksum;
+    }
+
+    /**
+     * Bilan d'une migration
+     */
+    public static final class Result {
+        private final int players;
+        private final int invalid;
+        private final long resumedFrom;
+        private final long checksum;
+        private final long millis;
+
+        private Result(int players, int invalid, long resumedFrom, long checksum, long millis) {
+            this.players = players;
+            this.invalid = invalid;
+            this.resumedFrom = resumedFrom;
+            this.checksum = checksum;
+            this.millis = millis;
+        }
+
+        public int getPlayers() { return players; }
+        public int getInvalid() { return invalid; }
+        public long getResumedFrom() { return resumedFrom; }
+        public long getChecksum() { return checksum; }
+        public long getMillis() { return millis; }
+
+        public String describe() {
+            return players + " joueur(s) migré(s) et vérifié(s), " + invalid + " entrée(s) ignorée(s)"
+                    + (resumedFrom > 0 ? ", reprise après " + resumedFrom + " entrée(s)" : "")
+                    + ", somme de contrôle " + Long.toHexString(checksum) + ", " + millis + " ms";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.simpledailyquests.storage;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Sauvegardes horodatées et compressées du stockage : nommage, liste et rotation des archives
+ */
+public class PlayerDataBackups {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String EXTENSION = ".zip";
+
+    private final Logger logger;
+    private final File directory;
+    private final int keep;
+    private String lastTimestamp;
+    private int sameTimestampCount;
+
+    public PlayerDataBackups(Logger logger, File directory, int keep) {
+        this.logger = logger;
+        this.directory = directory;
+        this.keep = Math.max(1, keep);
+    }
+
+    /**
+     * Fichier à utiliser pour une nouvelle sauvegarde du backend donné
+     */
+    public synchronized File nextBackupFile(String storageName) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.warning("Impossible de créer le dossier " + directory.getName());
+        }
+        // Deux sauvegardes demandées dans la même milliseconde (fichier pas encore écrit) ne doivent pas s'écraser
+        String timestamp = LocalDateTime.now().format(TIMESTAMP);
+        sameTimestampCount = timestamp.equals(lastTimestamp) ? sameTimestampCount + 1 : 0;
+        lastTimestamp = timestamp;
+
+        String name = storageName + "-" + timestamp;
+        File file = new File(directory, name + (sameTimestampCount > 0 ? "-" + sameTimestampCount : "") + EXTENSION);
+        for (int i = sameTimestampCount + 1; file.exists(); i++) {
+            file = new File(directory, name + "-" + i + EXTENSION);
+        }
+        return file;
+    }
+
+    /**
+     * Liste les sauvegardes, de la plus récente à la plus ancienne
+     */
+    public List<File> list() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> backups = new ArrayList<>(Arrays.asList(files));
+        // Tri sur l'horodatage (partie du nom après le backend)
+        backups.sort(Comparator.comparing(File::getName, this::compareTimestamps).reversed());
+        return backups;
+    }
+
+    /**
+     * Trouve une sauvegarde par son nom (avec ou sans extension), ou null
+     */
+    public File find(String name) {
+        String fileName = name.endsWith(EXTENSION) ? name : name + EXTENSION;
+        for (File backup : list()) {
+            if (backup.getName().equals(fileName)) {
+                return backup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Backend ayant produit une sauvegarde (préfixe du nom)
+     */
+    public static String storageNameOf(File backup) {
+        String name = backup.getName();
+        int separator = name.indexOf('-');
+        return separator > 0 ? name.substring(0, separator) : "";
+    }
+
+    /**
+     * Supprime les sauvegardes les plus anciennes au-delà du nombre à conserver
+     */
+    public int rotate() {
+        List<File> backups = list();
+        int deleted = 0;
+        for (int i = keep; i < backups.size(); i++) {
+            if (backups.get(i).delete()) {
+                deleted++;
+            } else {
+                logger.warning("Impossible de supprimer l'ancienne sauvegarde " + backups.get(i).getName());
+            }
+        }
+        return deleted;
+    }
+
+    private int compareTimestamps(String first, String second) {
+        return timestampOf(first).compareTo(timestampOf(second));
+    }
+
+    private static String timestampOf(String name) {
+        int separator = name.indexOf('-');
+        return separator > 0 ? name.substring(separator + 1) : name;
+    }
+}
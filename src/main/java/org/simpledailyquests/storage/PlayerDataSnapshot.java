@@ -0,0 +1,253 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.util.*;
+
+/**
+ * Copie immuable des données d'un joueur, capturée sur le thread principal
+ * puis sérialisée et écrite par le thread d'écriture
+ */
+public final class PlayerDataSnapshot {
+
+    private final UUID playerUUID;
+    private final String playerName;
+    private final long version;
+    private final Map<Quest.QuestRarity, Long> lastReset;
+    private final List<ActiveQuest> activeQuests;
+    private final List<CompletedEntry> completedQuests;
+    private final List<DailyRollup> rollups;
+    private final List<CompletedEntry> archivedQuests;
+    private final Counters counters;
+    private final long lastSeen;
+    private final long revision;
+
+    public PlayerDataSnapshot(UUID playerUUID, String playerName, long version,
+                              Map<Quest.QuestRarity, Long> lastReset,
+                              List<ActiveQuest> activeQuests,
+                              List<CompletedEntry> completedQuests) {
+        this(playerUUID, playerName, version, lastReset, activeQuests, completedQuests,
+                Collections.emptyList(), Collections.emptyList(), null, 0L);
+    }
+
+    /**
+     * @param completedQuests historique récent (fenêtre chaude) conservé avec le joueur
+     * @param rollups         totaux par jour et par rareté des complétions sorties de la fenêtre chaude
+     * @param archivedQuests  complétions sorties de la fenêtre chaude depuis le dernier snapshot, à archiver
+     * @param counters        compteurs de complétions (null pour les données enregistrées avant leur ajout)
+     * @param lastSeen        dernière connexion ou déconnexion connue (0 si inconnue)
+     */
+    public PlayerDataSnapshot(UUID playerUUID, String playerName, long version,
+                              Map<Quest.QuestRarity, Long> lastReset,
+                              List<ActiveQuest> activeQuests,
+                              List<CompletedEntry> completedQuests,
+                              List<DailyRollup> rollups,
+                              List<CompletedEntry> archivedQuests,
+                              Counters counters,
+                              long lastSeen) {
+        this(playerUUID, playerName, version, lastReset, activeQuests, completedQuests,
+                rollups, archivedQuests, counters, lastSeen, 0L);
+    }
+
+    /**
+     * @param revision révision de l'enregistrement lue dans un stockage partagé, sur laquelle se base ce snapshot
+     *                 (0 pour un joueur absent ou un stockage local)
+     */
+    public PlayerDataSnapshot(UUID playerUUID, String playerName, long version,
+                              Map<Quest.QuestRarity, Long> lastReset,
+                              List<ActiveQuest> activeQuests,
+                              List<CompletedEntry> completedQuests,
+                              List<DailyRollup> rollups,
+                              List<CompletedEntry> archivedQuests,
+                              Counters counters,
+                              long lastSeen,
+                              long revision) {
+        this.playerUUID = playerUUID;
+        this.playerName = playerName;
+        this.version = version;
+        Map<Quest.QuestRarity, Long> resets = new EnumMap<>(Quest.QuestRarity.class);
+        resets.putAll(lastReset);
+        this.lastReset = Collections.unmodifiableMap(resets);
+        this.activeQuests = List.copyOf(activeQuests);
+        this.completedQuests = List.copyOf(completedQuests);
+        this.rollups = List.copyOf(rollups);
+        this.archivedQuests = List.copyOf(archivedQuests);
+        this.counters = counters;
+        this.lastSeen = lastSeen;
+        this.revision = revision;
+    }
+
+    public UUID getPlayerUUID() { return playerUUID; }
+    public String getPlayerName() { return playerName; }
+    public long getVersion() { return version; }
+    public List<ActiveQuest> getActiveQuests() { return activeQuests; }
+    public List<CompletedEntry> getCompletedQuests() { return completedQuests; }
+    public List<DailyRollup> getRollups() { return rollups; }
+    public List<CompletedEntry> getArchivedQuests() { return archivedQuests; }
+    public Counters getCounters() { return counters; }
+    public long getLastSeen() { return lastSeen; }
+    public long getRevision() { return revision; }
+
+    /**
+     * Dernière activité connue : la dernière connexion, ou à défaut la plus récente
+     * des dates de rotation, d'attribution et de complétion (données enregistrées avant le suivi des connexions)
+     */
+    public long getLastActivity() {
+        if (lastSeen > 0) {
+            return lastSeen;
+        }
+        long activity = 0;
+        for (long reset : lastReset.values()) {
+            activity = Math.max(activity, reset);
+        }
+        for (ActiveQuest quest : activeQuests) {
+            activity = Math.max(activity, quest.getAssignedTime());
+        }
+        for (CompletedEntry entry : completedQuests) {
+            activity = Math.max(activity, entry.getCompletionTime());
+        }
+        return activity;
+    }
+
+    /**
+     * Copie dont les entrées à archiver sont précédées de celles d'un snapshot plus ancien (fusion dans la file d'écriture)
+     */
+    public PlayerDataSnapshot withEarlierArchive(List<CompletedEntry> earlier) {
+        if (earlier.isEmpty()) {
+            return this;
+        }
+        List<CompletedEntry> merged = new ArrayList<>(earlier.size() + archivedQuests.size());
+        merged.addAll(earlier);
+        merged.addAll(archivedQuests);
+        return new PlayerDataSnapshot(playerUUID, playerName, version, lastReset, activeQuests, completedQuests,
+                rollups, merged, counters, lastSeen, revision);
+    }
+
+    /**
+     * Copie sans entrées à archiver (déjà écrites dans l'archive)
+     */
+    public PlayerDataSnapshot withoutArchive() {
+        if (archivedQuests.isEmpty()) {
+            return this;
+        }
+        return new PlayerDataSnapshot(playerUUID, playerName, version, lastReset, activeQuests, completedQuests,
+                rollups, Collections.emptyList(), counters, lastSeen, revision);
+    }
+
+    /**
+     * Copie basée sur une autre révision du stockage partagé
+     */
+    public PlayerDataSnapshot withRevision(long revision) {
+        if (revision == this.revision) {
+            return this;
+        }
+        return new PlayerDataSnapshot(playerUUID, playerName, version, lastReset, activeQuests, completedQuests,
+                rollups, archivedQuests, counters, lastSeen, revision);
+    }
+
+    public long getLastReset(Quest.QuestRarity rarity) {
+        return lastReset.getOrDefault(rarity, 0L);
+    }
+
+    /**
+     * État figé d'une quête active
+     */
+    public static final class ActiveQuest {
+        private final String questId;
+        private final Quest.QuestType type;
+        private final Quest.QuestRarity rarity;
+        private final String target;
+        private final int required;
+        private final int progress;
+        private final long assignedTime;
+
+        public ActiveQuest(String questId, Quest.QuestType type, Quest.QuestRarity rarity, String target,
+                           int required, int progress, long assignedTime) {
+            this.questId = questId;
+            this.type = type;
+            this.rarity = rarity;
+            this.target = target;
+            this.required = required;
+            this.progress = progress;
+            this.assignedTime = assignedTime;
+        }
+
+        public ActiveQuest(Quest quest) {
+            this(quest.getQuestId(), quest.getType(), quest.getRarity(), quest.getTarget(),
+                    quest.getRequired(), quest.getProgress(), quest.getAssignedTime());
+        }
+
+        public String getQuestId() { return questId; }
+        public Quest.QuestType getType() { return type; }
+        public Quest.QuestRarity getRarity() { return rarity; }
+        public String getTarget() { return target; }
+        public int getRequired() { return required; }
+        public int getProgress() { return progress; }
+        public long getAssignedTime() { return assignedTime; }
+    }
+
+    /**
+     * Nombre de quêtes d'une rareté terminées un jour donné (jour UTC depuis l'epoch)
+     */
+    public static final class DailyRollup {
+        private final int day;
+        private final Quest.QuestRarity rarity;
+        private final int count;
+
+        public DailyRollup(int day, Quest.QuestRarity rarity, int count) {
+            this.day = day;
+            this.rarity = rarity;
+            this.count = count;
+        }
+
+        public int getDay() { return day; }
+        public Quest.QuestRarity getRarity() { return rarity; }
+        public int getCount() { return count; }
+    }
+
+    /**
+     * Compteurs figés des quêtes terminées : total, par rareté, par type et par jour récent (jour UTC depuis l'epoch)
+     */
+    public static final class Counters {
+        private final int total;
+        private final Map<Quest.QuestRarity, Integer> byRarity;
+        private final Map<Quest.QuestType, Integer> byType;
+        private final Map<Integer, Integer> byDay;
+
+        public Counters(int total, Map<Quest.QuestRarity, Integer> byRarity,
+                        Map<Quest.QuestType, Integer> byType, Map<Integer, Integer> byDay) {
+            this.total = total;
+            Map<Quest.QuestRarity, Integer> rarities = new EnumMap<>(Quest.QuestRarity.class);
+            rarities.putAll(byRarity);
+            this.byRarity = Collections.unmodifiableMap(rarities);
+            Map<Quest.QuestType, Integer> types = new EnumMap<>(Quest.QuestType.class);
+            types.putAll(byType);
+            this.byType = Collections.unmodifiableMap(types);
+            this.byDay = Collections.unmodifiableMap(new TreeMap<>(byDay));
+        }
+
+        public int getTotal() { return total; }
+        public Map<Quest.QuestRarity, Integer> getByRarity() { return byRarity; }
+        public Map<Quest.QuestType, Integer> getByType() { return byType; }
+        public Map<Integer, Integer> getByDay() { return byDay; }
+    }
+
+    /**
+     * Entrée figée de l'historique des quêtes terminées
+     */
+    public static final class CompletedEntry {
+        private final String questId;
+        private final long completionTime;
+        private final Quest.QuestRarity rarity;
+
+        public CompletedEntry(String questId, long completionTime, Quest.QuestRarity rarity) {
+            this.questId = questId;
+            this.completionTime = completionTime;
+            this.rarity = rarity;
+        }
+
+        public String getQuestId() { return questId; }
+        public long getCompletionTime() { return completionTime; }
+        public Quest.QuestRarity getRarity() { return rarity; }
+    }
+}
@@ -0,0 +1,124 @@
+package org.simpledailyquests.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Interface de stockage des données joueurs.
+ * Toutes les méthodes travaillent sur des snapshots immuables et peuvent être appelées hors du thread principal.
+ */
+public interface PlayerDataStorage {
+
+    /**
+     * Nom du backend (affiché dans les logs et les commandes admin)
+     */
+    String getName();
+
+    /**
+     * Indique si le stockage est partagé entre plusieurs serveurs : chaque écriture vérifie alors
+     * la révision du snapshot et échoue avec {@link RevisionConflictException} si un autre serveur a écrit entre-temps
+     */
+    default boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Prépare le stockage (dossiers, tables, index...)
+     */
+    void init() throws IOException;
+
+    /**
+     * Charge les données d'un joueur, ou null s'il n'existe pas
+     */
+    PlayerDataSnapshot load(UUID playerUUID) throws IOException;
+
+    /**
+     * Lit les complétions enregistrées d'un joueur entre deux dates (un backend indexé ne lit que la plage demandée)
+     */
+    default List<PlayerDataSnapshot.CompletedEntry> loadCompletedQuests(UUID playerUUID, long from, long to) throws IOException {
+        PlayerDataSnapshot snapshot = load(playerUUID);
+        List<PlayerDataSnapshot.CompletedEntry> completedQuests = new ArrayList<>();
+        if (snapshot != null) {
+            for (PlayerDataSnapshot.CompletedEntry entry : snapshot.getCompletedQuests()) {
+                if (entry.getCompletionTime() >= from && entry.getCompletionTime() <= to) {
+                    completedQuests.add(entry);
+                }
+            }
+        }
+        return completedQuests;
+    }
+
+    /**
+     * Liste les joueurs présents dans le stockage
+     */
+    List<UUID> listPlayers() throws IOException;
+
+    /**
+     * Sauvegarde les données d'un joueur
+     */
+    void save(PlayerDataSnapshot snapshot) throws IOException;
+
+    /**
+     * Sauvegarde plusieurs joueurs en une seule opération lorsque le backend le permet.
+     * Un stockage partagé écrit les joueurs sans conflit puis signale les autres par {@link RevisionConflictException}.
+     */
+    void saveBatch(Collection<PlayerDataSnapshot> snapshots) throws IOException;
+
+    /**
+     * Supprime les données d'un joueur
+     */
+    void delete(UUID playerUUID) throws IOException;
+
+    /**
+     * Supprime plusieurs joueurs en une seule opération lorsque le backend le permet
+     */
+    void deleteBatch(Collection<UUID> playerUUIDs) throws IOException;
+
+    /**
+     * Prend (ou prolonge) le bail d'un joueur pour ce serveur : réussit si le bail est libre, expiré ou déjà à lui.
+     * Avec {@code force}, le bail est pris quel que soit son détenteur. Toujours accordé par un stockage local.
+     */
+    default boolean acquireLease(UUID playerUUID, String owner, long durationMillis, boolean force) throws IOException {
+        return true;
+    }
+
+    /**
+     * Prolonge en une opération les baux des joueurs hébergés par ce serveur.
+     * Renvoie les joueurs dont le bail a été pris entre-temps par un autre serveur.
+     */
+    default List<UUID> renewLeases(Collection<UUID> playerUUIDs, String owner, long durationMillis) throws IOException {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Rend le bail d'un joueur s'il appartient encore à ce serveur
+     */
+    default void releaseLease(UUID playerUUID, String owner) throws IOException {
+    }
+
+    /**
+     * Rend tous les baux d'un serveur (arrêt, ou démarrage après un arrêt brutal)
+     */
+    default void releaseLeases(String owner) throws IOException {
+    }
+
+    /**
+     * Écrit une copie cohérente et compressée de tout le stockage dans une archive zip
+     */
+    void backup(File target) throws IOException;
+
+    /**
+     * Remplace tout le stockage par le contenu d'une archive créée par {@link #backup(File)}
+     */
+    void restore(File source) throws IOException;
+
+    /**
+     * Libère les ressources (connexions, fichiers)
+     */
+    void close();
+}
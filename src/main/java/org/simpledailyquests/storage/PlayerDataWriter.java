@@ -0,0 +1,456 @@
+package org.simpledailyquests.storage;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Thread d'écriture dédié : transmet les snapshots au stockage
+ * sans jamais bloquer le thread principal.
+ * Les demandes sont regroupées dans une file d'écriture différée : plusieurs demandes
+ * pour un même joueur ne donnent qu'une écriture, et le débit d'écriture est borné.
+ * Avec un stockage partagé, une écriture refusée parce qu'un autre serveur a écrit entre-temps
+ * est fusionnée avec la version enregistrée puis remise en file.
+ */
+public class PlayerDataWriter {
+
+    private final Logger logger;
+    private final PlayerDataStorage storage;
+    private final HistoryArchive archive;
+    private final ScheduledExecutorService executor;
+    private final int maxWritesPerFlush;
+    private final Consumer<List<PlayerDataSnapshot>> onWritten;
+    private final Consumer<List<PlayerDataSnapshot>> onMerged;
+
+    // File d'écriture différée : un seul snapshot (le plus récent) par joueur
+    private final LinkedHashMap<UUID, PlayerDataSnapshot> pending;
+    // Snapshots en cours d'écriture (retirés de la file mais pas encore sur disque)
+    private final Map<UUID, PlayerDataSnapshot> inFlight;
+    // Joueurs dont la suppression est planifiée mais pas encore faite, avec le numéro d'opération de la demande
+    private final Map<UUID, Long> tombstones;
+    // Stockage partagé : dernière révision écrite par ce serveur pour chaque joueur
+    private final Map<UUID, Long> revisions;
+    private long operationCount;
+    private long enqueuedCount;
+    private long coalescedCount;
+    private long writtenCount;
+    private long conflictCount;
+
+    // Écritures suspendues pendant une restauration : les demandes reçues sont ignorées
+    private volatile boolean paused;
+
+    public PlayerDataWriter(Logger logger, PlayerDataStorage storage, HistoryArchive archive,
+                            long flushIntervalMillis, int maxWritesPerFlush,
+                            Consumer<List<PlayerDataSnapshot>> onWritten,
+                            Consumer<List<PlayerDataSnapshot>> onMerged) {
+        this.logger = logger;
+        this.storage = storage;
+        this.archive = archive;
+        this.maxWritesPerFlush = Math.max(1, maxWritesPerFlush);
+        this.onWritten = onWritten;
+        this.onMerged = onMerged;
+        this.pending = new LinkedHashMap<>();
+        this.inFlight = new HashMap<>();
+        this.tombstones = new HashMap<>();
+        this.revisions = new HashMap<>();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SimpleDailyQuests-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(50L, flushIntervalMillis);
+        executor.scheduleWithFixedDelay(() -> flushPending(this.maxWritesPerFlush), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ajoute un snapshot à la file d'écriture différée (remplace une demande plus ancienne du même joueur)
+     */
+    public void enqueue(PlayerDataSnapshot snapshot) {
+        if (paused) {
+            return;
+        }
+        synchronized (pending) {
+            enqueuedCount++;
+            if (pending.containsKey(snapshot.getPlayerUUID())) {
+                coalescedCount++;
+            }
+            mergePending(snapshot);
+        }
+    }
+
+    /**
+     * Place un snapshot dans la file en gardant la version la plus récente,
+     * sans perdre les complétions à archiver de l'autre (appelé sous le verrou de la file)
+     */
+    private void mergePending(PlayerDataSnapshot snapshot) {
+        PlayerDataSnapshot previous = pending.get(snapshot.getPlayerUUID());
+        if (previous == null) {
+            pending.put(snapshot.getPlayerUUID(), snapshot);
+        } else if (previous.getVersion() > snapshot.getVersion()) {
+            pending.put(snapshot.getPlayerUUID(), previous.withEarlierArchive(snapshot.getArchivedQuests()));
+        } else {
+            pending.put(snapshot.getPlayerUUID(), snapshot.withEarlierArchive(previous.getArchivedQuests()));
+        }
+    }
+
+    /**
+     * Écrit toutes les demandes en attente sans limite de débit.
+     * Le futur renvoie le nombre de joueurs écrits, ou échoue si l'écriture n'a pas abouti.
+     */
+    public CompletableFuture<Integer> flush() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return writePending(Integer.MAX_VALUE);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Écrit les demandes en attente, en repassant tant qu'il en reste pour ce joueur
+     * (écriture fusionnée après un conflit), puis exécute une opération sur le stockage
+     */
+    public <T> CompletableFuture<T> flushThen(UUID playerUUID, StorageTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                for (int pass = 0; pass < 3 && findPending(playerUUID) != null; pass++) {
+                    writePending(Integer.MAX_VALUE);
+                }
+                return task.run(storage);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Écrit au plus {@code limit} demandes en attente (passage périodique, les erreurs sont seulement journalisées)
+     */
+    private int flushPending(int limit) {
+        try {
+            return writePending(limit);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Écrit au plus {@code limit} demandes en attente (exécuté sur le thread d'écriture)
+     */
+    private int writePending(int limit) throws IOException {
+        if (paused) {
+            return 0;
+        }
+
+        List<PlayerDataSnapshot> batch = new ArrayList<>();
+        long batchOperation;
+        synchronized (pending) {
+            batchOperation = ++operationCount;
+            Iterator<PlayerDataSnapshot> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < limit) {
+                PlayerDataSnapshot snapshot = rebase(iterator.next());
+                batch.add(snapshot);
+                inFlight.put(snapshot.getPlayerUUID(), snapshot);
+                iterator.remove();
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // L'archive est écrite avant le snapshot qui ne contient plus ces complétions
+        Set<PlayerDataSnapshot> archived = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<UUID> conflicts = Collections.emptySet();
+        try {
+            for (PlayerDataSnapshot snapshot : batch) {
+                if (!snapshot.getArchivedQuests().isEmpty()) {
+                    archive.append(snapshot.getPlayerUUID(), snapshot.getArchivedQuests());
+                    archived.add(snapshot);
+                }
+            }
+            storage.saveBatch(batch);
+        } catch (RevisionConflictException e) {
+            conflicts = e.getConflicts(); // Les autres joueurs du lot sont écrits
+        } catch (IOException e) {
+            // Remis en file pour le prochain passage (le joueur a pu être déchargé entre-temps)
+            logger.severe("Erreur lors de l'écriture de " + batch.size() + " joueur(s), nouvel essai au prochain passage: " + e.getMessage());
+            synchronized (pending) {
+                for (PlayerDataSnapshot snapshot : batch) {
+                    inFlight.remove(snapshot.getPlayerUUID());
+                    // Un joueur supprimé pendant l'écriture ne doit pas réapparaître
+                    Long deletedAt = tombstones.get(snapshot.getPlayerUUID());
+                    if (deletedAt == null || deletedAt < batchOperation) {
+                        mergePending(archived.contains(snapshot) ? snapshot.withoutArchive() : snapshot);
+                    }
+                }
+            }
+            throw e;
+        }
+
+        List<PlayerDataSnapshot> written = new ArrayList<>(batch.size());
+        List<PlayerDataSnapshot> conflicting = new ArrayList<>();
+        for (PlayerDataSnapshot snapshot : batch) {
+            (conflicts.contains(snapshot.getPlayerUUID()) ? conflicting : written).add(snapshot);
+        }
+
+        synchronized (pending) {
+            for (PlayerDataSnapshot snapshot : written) {
+                inFlight.remove(snapshot.getPlayerUUID(), snapshot);
+                if (storage.isShared()) {
+                    revisions.put(snapshot.getPlayerUUID(), snapshot.getRevision() + 1);
+                }
+            }
+            writtenCount += written.size();
+        }
+
+        if (!conflicting.isEmpty()) {
+            resolveConflicts(conflicting, archived, batchOperation);
+        }
+        if (!written.isEmpty()) {
+            onWritten.accept(written);
+        }
+        return written.size();
+    }
+
+    /**
+     * Un snapshot capturé avant la fin d'une écriture de ce serveur se base sur une révision que
+     * ce serveur a lui-même dépassée : il reprend la dernière révision écrite (appelé sous le verrou de la file)
+     */
+    private PlayerDataSnapshot rebase(PlayerDataSnapshot snapshot) {
+        Long written = revisions.get(snapshot.getPlayerUUID());
+        return written != null && written > snapshot.getRevision() ? snapshot.withRevision(written) : snapshot;
+    }
+
+    /**
+     * Fusionne les snapshots refusés avec la version enregistrée par un autre serveur et les remet en file
+     * (thread d'écriture). La fusion est transmise au gestionnaire pour mettre à jour les joueurs en mémoire.
+     */
+    private void resolveConflicts(List<PlayerDataSnapshot> conflicting, Set<PlayerDataSnapshot> archived, long batchOperation) {
+        List<PlayerDataSnapshot> merged = new ArrayList<>(conflicting.size());
+        for (PlayerDataSnapshot snapshot : conflicting) {
+            PlayerDataSnapshot local = archived.contains(snapshot) ? snapshot.withoutArchive() : snapshot;
+            PlayerDataSnapshot result;
+            try {
+                PlayerDataSnapshot stored = storage.load(snapshot.getPlayerUUID());
+                // Supprimé entre-temps par un autre serveur : le joueur est recréé avec les données locales
+                result = stored != null ? SnapshotMerger.merge(local, stored) : local.withRevision(0);
+            } catch (IOException e) {
+                logger.severe("Impossible de relire " + snapshot.getPlayerUUID() + " après un conflit, nouvel essai au prochain passage: " + e.getMessage());
+                result = local;
+            }
+
+            synchronized (pending) {
+                conflictCount++;
+                inFlight.remove(snapshot.getPlayerUUID());
+                Long deletedAt = tombstones.get(snapshot.getPlayerUUID());
+                if (deletedAt == null || deletedAt < batchOperation) {
+                    mergePending(result);
+                }
+            }
+            if (result != local) {
+                merged.add(result);
+            }
+        }
+
+        if (!merged.isEmpty()) {
+            logger.info(merged.size() + " joueur(s) modifié(s) par un autre serveur, données fusionnées.");
+            onMerged.accept(merged);
+        }
+    }
+
+    /**
+     * Planifie la suppression des données d'un joueur, ordonnée après les écritures déjà soumises
+     */
+    public CompletableFuture<Void> delete(UUID playerUUID) {
+        return deleteBatch(List.of(playerUUID));
+    }
+
+    /**
+     * Planifie la suppression de plusieurs joueurs en une seule opération du stockage.
+     * Jusqu'à son exécution, ces joueurs sont considérés comme absents (voir {@link #isDeleted(UUID)}).
+     */
+    public CompletableFuture<Void> deleteBatch(Collection<UUID> playerUUIDs) {
+        List<UUID> deleted = List.copyOf(playerUUIDs);
+        if (deleted.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        synchronized (pending) {
+            long operation = ++operationCount;
+            for (UUID playerUUID : deleted) {
+                pending.remove(playerUUID);
+                inFlight.remove(playerUUID);
+                tombstones.put(playerUUID, operation);
+            }
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                storage.deleteBatch(deleted);
+                for (UUID playerUUID : deleted) {
+                    archive.delete(playerUUID);
+                }
+                synchronized (pending) {
+                    for (UUID playerUUID : deleted) {
+                        revisions.remove(playerUUID);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warning("Impossible de supprimer les données de " + deleted.size() + " joueur(s): " + e.getMessage());
+            } finally {
+                synchronized (pending) {
+                    for (UUID playerUUID : deleted) {
+                        tombstones.remove(playerUUID);
+                    }
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Vérifie si la suppression d'un joueur est planifiée mais pas encore écrite :
+     * ce qui reste dans le stockage pour lui ne doit plus être lu
+     */
+    public boolean isDeleted(UUID playerUUID) {
+        synchronized (pending) {
+            return tombstones.containsKey(playerUUID);
+        }
+    }
+
+    /**
+     * Exécute une opération sur le stockage depuis le thread d'écriture, après les écritures déjà soumises
+     */
+    public <T> CompletableFuture<T> submit(StorageTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.run(storage);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Obtient l'archive de l'historique des quêtes terminées
+     */
+    public HistoryArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Suspend les écritures et abandonne les demandes en attente (le stockage va être remplacé)
+     */
+    public void pause() {
+        paused = true;
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Reprend les écritures après une restauration
+     */
+    public void resume() {
+        synchronized (pending) {
+            pending.clear(); // Demandes reçues juste avant la pause, basées sur les anciennes données
+        }
+        paused = false;
+    }
+
+    /**
+     * Obtient le snapshot d'un joueur pas encore écrit sur disque, ou null.
+     * Permet de recharger un joueur qui se reconnecte avant la fin de sa sauvegarde.
+     */
+    public PlayerDataSnapshot findPending(UUID playerUUID) {
+        synchronized (pending) {
+            PlayerDataSnapshot snapshot = pending.get(playerUUID);
+            return snapshot != null ? snapshot : inFlight.get(playerUUID);
+        }
+    }
+
+    /**
+     * Nombre de joueurs en attente d'écriture
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Nombre total de demandes d'écriture reçues
+     */
+    public long getEnqueuedCount() {
+        synchronized (pending) {
+            return enqueuedCount;
+        }
+    }
+
+    /**
+     * Nombre de demandes fusionnées avec une demande déjà en attente
+     */
+    public long getCoalescedCount() {
+        synchronized (pending) {
+            return coalescedCount;
+        }
+    }
+
+    /**
+     * Nombre d'écritures effectuées sur disque
+     */
+    public long getWrittenCount() {
+        synchronized (pending) {
+            return writtenCount;
+        }
+    }
+
+    /**
+     * Nombre d'écritures refusées parce qu'un autre serveur avait écrit entre-temps (stockage partagé)
+     */
+    public long getConflictCount() {
+        synchronized (pending) {
+            return conflictCount;
+        }
+    }
+
+    /**
+     * Écrit les demandes en attente, attend la fin des écritures puis arrête le thread d'écriture.
+     * Renvoie true si toutes les demandes ont été écrites.
+     */
+    public boolean shutdown(long timeoutSeconds) {
+        executor.execute(() -> {
+            // Les écritures fusionnées après un conflit sont remises en file : quelques passages au plus
+            for (int pass = 0; pass < 3 && getPendingCount() > 0; pass++) {
+                flushPending(Integer.MAX_VALUE);
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.severe("Les écritures en attente n'ont pas pu être terminées avant l'arrêt.");
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return getPendingCount() == 0;
+    }
+
+    /**
+     * Opération exécutée sur le thread d'écriture
+     */
+    @FunctionalInterface
+    public interface StorageTask<T> {
+        T run(PlayerDataStorage storage) throws IOException;
+    }
+}
@@ -0,0 +1,174 @@
+package org.simpledailyquests.storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Baux des joueurs hébergés par ce serveur sur un stockage partagé.
+ * À la connexion, le serveur attend que l'ancien serveur du joueur ait rendu son bail
+ * (après sa dernière écriture) avant de lire les données ; un bail non rendu expire.
+ * Mesure les temps de transfert des deux côtés.
+ */
+public class PlayerLeases {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final Logger logger;
+    private final PlayerDataStorage storage;
+    private final String owner;
+    private final long durationMillis;
+    private final long handoffTimeoutMillis;
+
+    // Bail détenu par joueur, avec un jeton par prise (une déconnexion ne rend pas le bail d'une reconnexion)
+    private final Map<UUID, Long> held = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+
+    // Statistiques de transfert (connexions et déconnexions)
+    private long acquiredCount;
+    private long waitedCount;
+    private long timeoutCount;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private long releasedCount;
+    private long totalReleaseMillis;
+    private long maxReleaseMillis;
+
+    public PlayerLeases(Logger logger, PlayerDataStorage storage, String owner, long durationMillis, long handoffTimeoutMillis) {
+        this.logger = logger;
+        this.storage = storage;
+        this.owner = owner;
+        this.durationMillis = Math.max(1000L, durationMillis);
+        this.handoffTimeoutMillis = Math.max(0L, handoffTimeoutMillis);
+    }
+
+    /**
+     * Identifiant de ce serveur dans la table des baux
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Durée d'un bail (à renouveler avant son expiration pour les joueurs connectés)
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Prend le bail d'un joueur en attendant que son ancien serveur le rende (bloquant, pré-connexion).
+     * Passé le délai de transfert, le bail est pris de force : l'ancien serveur ne répond plus.
+     */
+    public void acquire(UUID playerUUID) throws IOException {
+        long start = System.nanoTime();
+        boolean waited = false;
+        boolean timedOut = false;
+
+        while (!storage.acquireLease(playerUUID, owner, durationMillis, false)) {
+            waited = true;
+            if (elapsedMillis(start) >= handoffTimeoutMillis) {
+                timedOut = true;
+                logger.warning("Bail de " + playerUUID + " non rendu par l'ancien serveur après "
+                        + handoffTimeoutMillis + " ms, pris de force.");
+                storage.acquireLease(playerUUID, owner, durationMillis, true);
+                break;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Attente du bail interrompue", e);
+            }
+        }
+
+        held.put(playerUUID, tokens.incrementAndGet());
+        long waitMillis = elapsedMillis(start);
+        synchronized (this) {
+            acquiredCount++;
+            if (waited) {
+                waitedCount++;
+            }
+            if (timedOut) {
+                timeoutCount++;
+            }
+            totalWaitMillis += waitMillis;
+            maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+        }
+    }
+
+    /**
+     * Jeton du bail détenu pour un joueur (à passer à {@link #release(UUID, long, long)}), ou 0
+     */
+    public long tokenOf(UUID playerUUID) {
+        return held.getOrDefault(playerUUID, 0L);
+    }
+
+    /**
+     * Rend le bail d'un joueur après sa dernière écriture, sauf s'il a été repris depuis (reconnexion).
+     * {@code quitNanos} : instant de la déconnexion, pour mesurer le temps de transfert côté ancien serveur.
+     */
+    public void release(UUID playerUUID, long token, long quitNanos) {
+        if (token == 0 || !held.remove(playerUUID, token)) {
+            return;
+        }
+        try {
+            storage.releaseLease(playerUUID, owner);
+        } catch (IOException e) {
+            logger.warning("Impossible de rendre le bail de " + playerUUID + " (il expirera): " + e.getMessage());
+            return;
+        }
+
+        long releaseMillis = elapsedMillis(quitNanos);
+        synchronized (this) {
+            releasedCount++;
+            totalReleaseMillis += releaseMillis;
+            maxReleaseMillis = Math.max(maxReleaseMillis, releaseMillis);
+        }
+    }
+
+    /**
+     * Prolonge les baux des joueurs connectés ici (thread d'écriture)
+     */
+    public void renew(Collection<UUID> playerUUIDs) {
+        try {
+            List<UUID> lost = storage.renewLeases(playerUUIDs, owner, durationMillis);
+            if (!lost.isEmpty()) {
+                logger.warning(lost.size() + " bail(s) pris par un autre serveur pour des joueurs encore connectés ici.");
+            }
+        } catch (IOException e) {
+            logger.warning("Impossible de renouveler les baux: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rend tous les baux de ce serveur (démarrage après un arrêt brutal, arrêt)
+     */
+    public void releaseAll() {
+        held.clear();
+        try {
+            storage.releaseLeases(owner);
+        } catch (IOException e) {
+            logger.warning("Impossible de rendre les baux de " + owner + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Résumé des temps de transfert (commande admin)
+     */
+    public synchronized String describe() {
+        return acquiredCount + " connexion(s), " + waitedCount + " en attente de l'ancien serveur (moyenne "
+                + (acquiredCount > 0 ? totalWaitMillis / acquiredCount : 0) + " ms, max " + maxWaitMillis + " ms, "
+                + timeoutCount + " délai(s) dépassé(s)) ; " + releasedCount + " bail(s) rendu(s) après déconnexion (moyenne "
+                + (releasedCount > 0 ? totalReleaseMillis / releasedCount : 0) + " ms, max " + maxReleaseMillis + " ms)";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,490 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Journal d'événements pour l'audit et les statistiques (progrès, complétion, récupération, rotation, expiration).
+ * Chaque événement est un enregistrement binaire de taille fixe écrit dans un segment projeté en mémoire :
+ * l'écriture depuis le thread principal n'est qu'une copie en mémoire, le système se charge du disque.
+ * L'en-tête du segment contient la position validée : elle n'avance qu'une fois les enregistrements synchronisés,
+ * la lecture et la reprise s'y arrêtent. Le segment suivant est préparé à l'avance hors du thread principal.
+ * Indépendant du journal de reprise ({@link QuestJournal}).
+ *
+ * Les cibles (blocs, entités...) sont remplacées par un numéro ; la correspondance est dans targets.txt.
+ */
+public class QuestEventLog {
+
+    private static final int MAGIC = 0x44514556; // "DQEV"
+    private static final int FORMAT_VERSION = 2;
+    private static final int COMMITTED_OFFSET = 24;
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String TARGETS_FILE = "targets.txt";
+
+    /**
+     * Taille d'un enregistrement (et de l'en-tête de segment)
+     */
+    public static final int RECORD_SIZE = 64;
+
+    private final Logger logger;
+    private final File directory;
+    private final long segmentBytes;
+    private final long syncIntervalMillis;
+    private ScheduledExecutorService executor;
+
+    // Segment courant (écrit depuis le thread principal)
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segment;
+    private long recordCount;
+    private MappedSegment nextSegment; // Segment suivant déjà projeté, null s'il n'est pas encore prêt
+
+    private final Map<String, Integer> targetIds = new HashMap<>();
+    private Writer targetsWriter;
+
+    public QuestEventLog(Logger logger, File directory, long segmentBytes, long syncIntervalMillis) {
+        this.logger = logger;
+        this.directory = directory;
+        // Multiple de la taille d'un enregistrement, en-tête compris
+        this.segmentBytes = Math.max(64L, segmentBytes / RECORD_SIZE) * RECORD_SIZE;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    /**
+     * Reprend le dernier segment (après son dernier enregistrement) ou en crée un
+     */
+    public synchronized void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + directory.getName());
+        }
+
+        File targets = new File(directory, TARGETS_FILE);
+        if (targets.exists()) {
+            for (String line : Files.readAllLines(targets.toPath(), StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    try {
+                        targetIds.put(line.substring(separator + 1), Integer.parseInt(line.substring(0, separator)));
+                    } catch (NumberFormatException e) {
+                        logger.warning("Ligne ignorée dans " + TARGETS_FILE + ": " + line);
+                    }
+                }
+            }
+        }
+        targetsWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(targets, true), StandardCharsets.UTF_8));
+
+        List<File> segments = listSegments(directory);
+        long number = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1));
+        use(mapSegment(directory, segmentBytes, number));
+
+        if (syncIntervalMillis > 0) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SimpleDailyQuests-Events");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+            prepareNext();
+        }
+    }
+
+    /**
+     * Projette un segment en mémoire et se place à sa position validée
+     */
+    private static MappedSegment mapSegment(File directory, long segmentBytes, long number) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + String.format("%08d", number) + SEGMENT_SUFFIX);
+        boolean created = !file.exists();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, channel.size()));
+
+        if (created || buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putLong(12, System.currentTimeMillis());
+            buffer.putLong(COMMITTED_OFFSET, RECORD_SIZE);
+            buffer.position(RECORD_SIZE);
+            return new MappedSegment(file, number, channel, buffer);
+        }
+
+        // Les enregistrements écrits après la dernière synchronisation peuvent être incomplets : ils sont écrasés
+        buffer.position(buffer.getInt(4) >= 2 ? committedPosition(buffer) : legacyPosition(buffer));
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(COMMITTED_OFFSET, buffer.position());
+        return new MappedSegment(file, number, channel, buffer);
+    }
+
+    /**
+     * Position validée lue dans l'en-tête (début des enregistrements si elle est invalide)
+     */
+    private static int committedPosition(ByteBuffer data) {
+        long committed = data.getLong(COMMITTED_OFFSET);
+        if (committed < RECORD_SIZE || committed > data.capacity() || committed % RECORD_SIZE != 0) {
+            return RECORD_SIZE;
+        }
+        return (int) committed;
+    }
+
+    /**
+     * Segment de la version 1, sans position validée : premier emplacement vide (date à 0), les enregistrements étant contigus
+     */
+    private static int legacyPosition(ByteBuffer data) {
+        int low = 0;
+        int high = data.capacity() / RECORD_SIZE - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (data.getLong((middle + 1) * RECORD_SIZE) != 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + 1) * RECORD_SIZE;
+    }
+
+    private void use(MappedSegment mapped) {
+        channel = mapped.channel;
+        buffer = mapped.buffer;
+        segment = mapped.number;
+    }
+
+    /**
+     * Projette le segment suivant sur le thread du journal, pour que le changement de segment ne fasse qu'un échange
+     */
+    private void prepareNext() {
+        if (executor == null) {
+            return;
+        }
+        long number = segment + 1;
+        executor.execute(() -> {
+            try {
+                MappedSegment next = mapSegment(directory, segmentBytes, number);
+                synchronized (this) {
+                    if (buffer != null && nextSegment == null && segment + 1 == number) {
+                        nextSegment = next;
+                        return;
+                    }
+                }
+                next.channel.close(); // Déjà ouvert par le thread principal, ou journal fermé
+            } catch (IOException e) {
+                logger.warning("Impossible de préparer le segment d'événements " + number + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public void logProgress(UUID playerUUID, Quest quest, int amount) {
+        append(EventType.PROGRESS, playerUUID, quest, amount);
+    }
+
+    public void logCompleted(UUID playerUUID, Quest quest) {
+        append(EventType.COMPLETED, playerUUID, quest, 0);
+    }
+
+    public void logClaimed(UUID playerUUID, Quest quest) {
+        append(EventType.CLAIMED, playerUUID, quest, 0);
+    }
+
+    public void logRotated(UUID playerUUID, Quest quest) {
+        append(EventType.ROTATED, playerUUID, quest, 0);
+    }
+
+    public void logExpired(UUID playerUUID, Quest quest) {
+        append(EventType.EXPIRED, playerUUID, quest, 0);
+    }
+
+    /**
+     * Écrit un enregistrement (copie en mémoire ; nouveau segment si le courant est plein)
+     */
+    private synchronized void append(EventType type, UUID playerUUID, Quest quest, int amount) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (buffer.remaining() < RECORD_SIZE) {
+                roll();
+            }
+            int targetId = targetIdOf(quest.getTarget());
+
+            int offset = buffer.position();
+            buffer.putLong(offset, System.currentTimeMillis());
+            buffer.putLong(offset + 8, playerUUID.getMostSignificantBits());
+            buffer.putLong(offset + 16, playerUUID.getLeastSignificantBits());
+            buffer.putLong(offset + 24, quest.getAssignedTime());
+            buffer.putInt(offset + 32, targetId);
+            buffer.putInt(offset + 36, amount);
+            buffer.putInt(offset + 40, quest.getProgress());
+            buffer.putInt(offset + 44, quest.getRequired());
+            buffer.put(offset + 48, (byte) type.ordinal());
+            buffer.put(offset + 49, (byte) quest.getRarity().ordinal());
+            buffer.put(offset + 50, (byte) quest.getType().ordinal());
+            buffer.position(offset + RECORD_SIZE);
+            recordCount++;
+        } catch (IOException e) {
+            logger.warning("Journal d'événements désactivé: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    private void roll() throws IOException {
+        MappedByteBuffer full = buffer;
+        FileChannel fullChannel = channel;
+        MappedSegment next = nextSegment;
+        nextSegment = null;
+        if (next == null || next.number != segment + 1) {
+            // Pas encore prêt : projection sur le thread appelant
+            next = mapSegment(directory, segmentBytes, segment + 1);
+        }
+        use(next);
+        prepareNext();
+
+        // Le segment plein est validé et synchronisé hors du thread principal
+        Runnable release = () -> {
+            commit(full, full.capacity());
+            try {
+                fullChannel.close();
+            } catch (IOException e) {
+                logger.warning("Erreur lors de la fermeture d'un segment d'événements: " + e.getMessage());
+            }
+        };
+        if (executor != null) {
+            executor.execute(release);
+        } else {
+            release.run();
+        }
+    }
+
+    /**
+     * Numéro d'une cible, ajouté au dictionnaire à sa première apparition
+     */
+    private int targetIdOf(String target) throws IOException {
+        Integer id = targetIds.get(target);
+        if (id == null) {
+            id = targetIds.size() + 1;
+            targetIds.put(target, id);
+            targetsWriter.write(id + "\t" + target + "\n");
+            targetsWriter.flush();
+        }
+        return id;
+    }
+
+    /**
+     * Force l'écriture sur disque des enregistrements du segment courant, puis valide leur position
+     */
+    private void sync() {
+        MappedByteBuffer current;
+        int position;
+        synchronized (this) {
+            current = buffer;
+            position = current != null ? current.position() : 0;
+        }
+        if (current != null) {
+            commit(current, position);
+        }
+    }
+
+    /**
+     * Les enregistrements avant {@code position} sont sur disque avant que l'en-tête ne les déclare valides
+     */
+    private static void commit(MappedByteBuffer segmentBuffer, int position) {
+        segmentBuffer.force();
+        segmentBuffer.putLong(COMMITTED_OFFSET, position);
+        segmentBuffer.force(0, RECORD_SIZE);
+    }
+
+    /**
+     * Nombre d'événements écrits depuis l'ouverture
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getSegment() {
+        return segment;
+    }
+
+    /**
+     * Synchronise et ferme le segment courant
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (buffer != null) {
+                commit(buffer, buffer.position());
+            }
+            // Le segment préparé à l'avance n'a pas servi
+            if (nextSegment != null) {
+                try {
+                    nextSegment.channel.close();
+                } catch (IOException e) {
+                    logger.warning("Erreur lors de la fermeture d'un segment d'événements: " + e.getMessage());
+                }
+                if (!nextSegment.file.delete()) {
+                    logger.warning("Impossible de supprimer le segment d'événements " + nextSegment.file.getName());
+                }
+                nextSegment = null;
+            }
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly() {
+        buffer = null;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (targetsWriter != null) {
+                targetsWriter.close();
+            }
+        } catch (IOException e) {
+            logger.warning("Erreur lors de la fermeture du journal d'événements: " + e.getMessage());
+        }
+        channel = null;
+        targetsWriter = null;
+    }
+
+    /**
+     * Lit tous les événements d'un dossier, dans l'ordre d'écriture (outils d'analyse)
+     */
+    public static void readAll(File directory, Consumer<Event> consumer) throws IOException {
+        Map<Integer, String> targets = new HashMap<>();
+        File targetsFile = new File(directory, TARGETS_FILE);
+        if (targetsFile.exists()) {
+            for (String line : Files.readAllLines(targetsFile.toPath(), StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    targets.put(Integer.parseInt(line.substring(0, separator)), line.substring(separator + 1));
+                }
+            }
+        }
+
+        EventType[] types = EventType.values();
+        Quest.QuestRarity[] rarities = Quest.QuestRarity.values();
+        Quest.QuestType[] questTypes = Quest.QuestType.values();
+        for (File file : listSegments(directory)) {
+            try (FileChannel segmentChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer data = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+                if (data.capacity() < RECORD_SIZE || data.getInt(0) != MAGIC) {
+                    continue;
+                }
+                // Enregistrements validés seulement (version 1 : jusqu'au premier emplacement vide)
+                int end = data.getInt(4) >= 2 ? committedPosition(data) : data.capacity();
+                for (int offset = RECORD_SIZE; offset + RECORD_SIZE <= end; offset += RECORD_SIZE) {
+                    long time = data.getLong(offset);
+                    if (time == 0) {
+                        break;
+                    }
+                    int type = data.get(offset + 48);
+                    int rarity = data.get(offset + 49);
+                    int questType = data.get(offset + 50);
+                    if (type >= types.length || rarity >= rarities.length || questType >= questTypes.length) {
+                        continue;
+                    }
+                    consumer.accept(new Event(types[type], time,
+                            new UUID(data.getLong(offset + 8), data.getLong(offset + 16)), data.getLong(offset + 24),
+                            questTypes[questType], rarities[rarity], targets.get(data.getInt(offset + 32)),
+                            data.getInt(offset + 36), data.getInt(offset + 40), data.getInt(offset + 44)));
+                }
+            }
+        }
+    }
+
+    private static List<File> listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        List<File> segments = files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+        segments.sort(Comparator.comparingLong(QuestEventLog::segmentNumber));
+        return segments;
+    }
+
+    private static long segmentNumber(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Segment projeté en mémoire
+     */
+    private static final class MappedSegment {
+        private final File file;
+        private final long number;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private MappedSegment(File file, long number, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    public enum EventType {
+        PROGRESS, COMPLETED, CLAIMED, ROTATED, EXPIRED
+    }
+
+    /**
+     * Événement relu depuis les segments
+     */
+    public static final class Event {
+        private final EventType type;
+        private final long time;
+        private final UUID playerUUID;
+        private final long assignedTime;
+        private final Quest.QuestType questType;
+        private final Quest.QuestRarity rarity;
+        private final String target;
+        private final int amount;
+        private final int progress;
+        private final int required;
+
+        private Event(EventType type, long time, UUID playerUUID, long assignedTime, Quest.QuestType questType,
+                      Quest.QuestRarity rarity, String target, int amount, int progress, int required) {
+            this.type = type;
+            this.time = time;
+            this.playerUUID = playerUUID;
+            this.assignedTime = assignedTime;
+            this.questType = questType;
+            this.rarity = rarity;
+            this.target = target;
+            this.amount = amount;
+            this.progress = progress;
+            this.required = required;
+        }
+
+        public EventType getType() { return type; }
+        public long getTime() { return time; }
+        public UUID getPlayerUUID() { return playerUUID; }
+        public long getAssignedTime() { return assignedTime; }
+        public Quest.QuestType getQuestType() { return questType; }
+        public Quest.QuestRarity getRarity() { return rarity; }
+        public String getTarget() { return target; }
+        public int getAmount() { return amount; }
+        public int getProgress() { return progress; }
+        public int getRequired() { return required; }
+    }
+}
@@ -0,0 +1,497 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binaire en ajout seul des modifications de quêtes (progrès, attribution, récupération, rotation).
+ * Les événements sont accumulés en mémoire sur le thread principal, puis écrits séquentiellement
+ * et synchronisés sur disque à intervalle régulier par un thread dédié.
+ * Le journal est découpé en segments : un nouveau segment est ouvert à chaque point de sauvegarde,
+ * et les segments précédents sont supprimés une fois les snapshots correspondants écrits.
+ *
+ * Toutes les opérations sont idempotentes et monotones (progrès absolu et croissant, suppression par ID...)
+ * pour pouvoir être rejouées sur un snapshot plus récent que le journal sans faire reculer les données.
+ */
+public class QuestJournal {
+
+    private static final int MAGIC = 0x53445151; // "SDQQ"
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Logger logger;
+    private final File directory;
+    private final ScheduledExecutorService executor;
+    private final long syncIntervalMillis;
+
+    // Événements pas encore écrits (rempli par le thread principal)
+    private final Object bufferLock = new Object();
+    private ByteArrayOutputStream buffer;
+    private DataOutputStream output;
+    private long recordCount;
+
+    // Segment courant (accédé uniquement par le thread du journal)
+    private FileChannel channel;
+    private long segment;
+
+    public QuestJournal(Logger logger, File directory, long syncIntervalMillis) {
+        this.logger = logger;
+        this.directory = directory;
+        this.syncIntervalMillis = Math.max(50L, syncIntervalMillis);
+        this.buffer = new ByteArrayOutputStream(4096);
+        this.output = new DataOutputStream(buffer);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SimpleDailyQuests-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lit tous les segments existants (restes d'un arrêt brutal), dans l'ordre d'écriture.
+     * Un enregistrement incomplet ou corrompu termine la lecture de son segment.
+     */
+    public List<Record> readExisting() throws IOException {
+        List<Record> records = new ArrayList<>();
+        for (File file : listSegments()) {
+            readSegment(file, records);
+        }
+        return records;
+    }
+
+    /**
+     * Supprime les segments existants une fois rejoués
+     */
+    public void deleteExisting() {
+        for (File file : listSegments()) {
+            if (!file.delete()) {
+                logger.warning("Impossible de supprimer le segment de journal " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Met de côté les segments existants qui n'ont pas pu être rejoués (récupération manuelle)
+     */
+    public void quarantineExisting() {
+        for (File file : listSegments()) {
+            File target = new File(directory, file.getName() + ".failed");
+            if (!file.renameTo(target)) {
+                logger.warning("Impossible de renommer le segment de journal " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Ouvre un nouveau segment et démarre la synchronisation périodique
+     */
+    public void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Impossible de créer le dossier " + directory.getName());
+        }
+
+        long last = 0;
+        for (File file : listSegments()) {
+            last = Math.max(last, segmentNumber(file));
+        }
+        openSegment(last + 1);
+
+        executor.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void logProgress(UUID playerUUID, String questId, int progress) {
+        synchronized (bufferLock) {
+            try {
+                ByteArrayOutputStream body = beginRecord(RecordType.PROGRESS, playerUUID);
+                DataOutputStream data = new DataOutputStream(body);
+                data.writeUTF(questId);
+                data.writeInt(progress);
+                endRecord(body);
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser un progrès: " + e.getMessage());
+            }
+        }
+    }
+
+    public void logAssign(UUID playerUUID, Quest quest) {
+        synchronized (bufferLock) {
+            try {
+                ByteArrayOutputStream body = beginRecord(RecordType.ASSIGN, playerUUID);
+                DataOutputStream data = new DataOutputStream(body);
+                data.writeUTF(quest.getQuestId());
+                data.writeByte(quest.getType().ordinal());
+                data.writeByte(quest.getRarity().ordinal());
+                data.writeUTF(quest.getTarget());
+                data.writeInt(quest.getRequired());
+                data.writeInt(quest.getProgress());
+                data.writeLong(quest.getAssignedTime());
+                endRecord(body);
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser une attribution: " + e.getMessage());
+            }
+        }
+    }
+
+    public void logRemove(UUID playerUUID, String questId) {
+        synchronized (bufferLock) {
+            try {
+                ByteArrayOutputStream body = beginRecord(RecordType.REMOVE, playerUUID);
+                new DataOutputStream(body).writeUTF(questId);
+                endRecord(body);
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser une suppression de quête: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Récupération des récompenses : retrait de la quête active et ajout à l'historique en un seul événement
+     */
+    public void logClaim(UUID playerUUID, String questId, long completionTime, Quest.QuestRarity rarity) {
+        writeCompletion(RecordType.CLAIM, playerUUID, questId, completionTime, rarity);
+    }
+
+    public void logCompleted(UUID playerUUID, String questId, long completionTime, Quest.QuestRarity rarity) {
+        writeCompletion(RecordType.COMPLETED, playerUUID, questId, completionTime, rarity);
+    }
+
+    public void logReset(UUID playerUUID, Quest.QuestRarity rarity, long time) {
+        synchronized (bufferLock) {
+            try {
+                ByteArrayOutputStream body = beginRecord(RecordType.RESET, playerUUID);
+                DataOutputStream data = new DataOutputStream(body);
+                data.writeByte(rarity.ordinal());
+                data.writeLong(time);
+                endRecord(body);
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser une rotation: " + e.getMessage());
+            }
+        }
+    }
+
+    public void logDelete(UUID playerUUID) {
+        synchronized (bufferLock) {
+            try {
+                endRecord(beginRecord(RecordType.DELETE, playerUUID));
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser une suppression de joueur: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeCompletion(RecordType type, UUID playerUUID, String questId, long completionTime, Quest.QuestRarity rarity) {
+        synchronized (bufferLock) {
+            try {
+                ByteArrayOutputStream body = beginRecord(type, playerUUID);
+                DataOutputStream data = new DataOutputStream(body);
+                data.writeUTF(questId);
+                data.writeLong(completionTime);
+                data.writeByte(rarity.ordinal());
+                endRecord(body);
+            } catch (IOException e) {
+                logger.warning("Impossible de journaliser une complétion: " + e.getMessage());
+            }
+        }
+    }
+
+    private ByteArrayOutputStream beginRecord(RecordType type, UUID playerUUID) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream data = new DataOutputStream(body);
+        data.writeByte(type.ordinal());
+        data.writeLong(playerUUID.getMostSignificantBits());
+        data.writeLong(playerUUID.getLeastSignificantBits());
+        return body;
+    }
+
+    /**
+     * Ajoute un enregistrement encadré : longueur, contenu, CRC32 du contenu
+     */
+    private void endRecord(ByteArrayOutputStream body) throws IOException {
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        output.writeInt((int) crc.getValue());
+        recordCount++;
+    }
+
+    /**
+     * Point de sauvegarde : les événements déjà reçus sont écrits dans le segment courant,
+     * puis un nouveau segment est ouvert. Le futur renvoie le numéro du nouveau segment.
+     */
+    public CompletableFuture<Long> roll() {
+        byte[] remaining = takeBuffer();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                writeAndForce(remaining);
+                channel.close();
+                openSegment(segment + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return segment;
+        }, executor);
+    }
+
+    /**
+     * Supprime les segments antérieurs au segment donné (leurs événements sont couverts par les snapshots écrits)
+     */
+    public CompletableFuture<Void> truncateBefore(long segmentNumber) {
+        return CompletableFuture.runAsync(() -> {
+            for (File file : listSegments()) {
+                if (segmentNumber(file) < segmentNumber && !file.delete()) {
+                    logger.warning("Impossible de supprimer le segment de journal " + file.getName());
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Nombre total d'événements journalisés depuis le démarrage
+     */
+    public long getRecordCount() {
+        synchronized (bufferLock) {
+            return recordCount;
+        }
+    }
+
+    /**
+     * Écrit et synchronise les derniers événements puis ferme le journal
+     */
+    public void close() {
+        executor.execute(() -> {
+            syncQuietly();
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                logger.warning("Erreur lors de la fermeture du journal: " + e.getMessage());
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.severe("Le journal n'a pas pu être synchronisé avant l'arrêt.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] takeBuffer() {
+        synchronized (bufferLock) {
+            if (buffer.size() == 0) {
+                return new byte[0];
+            }
+            byte[] bytes = buffer.toByteArray();
+            buffer = new ByteArrayOutputStream(Math.max(4096, bytes.length));
+            output = new DataOutputStream(buffer);
+            return bytes;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            writeAndForce(takeBuffer());
+        } catch (IOException e) {
+            logger.severe("Erreur lors de l'écriture du journal: " + e.getMessage());
+        }
+    }
+
+    private void writeAndForce(byte[] bytes) throws IOException {
+        if (bytes.length == 0 || channel == null) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        channel.force(false);
+    }
+
+    private void openSegment(long number) throws IOException {
+        File file = new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segment = number;
+
+        ByteBuffer header = ByteBuffer.allocate(5);
+        header.putInt(MAGIC).put(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+
+    private List<File> listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparingLong(QuestJournal::segmentNumber));
+        return segments;
+    }
+
+    private static long segmentNumber(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void readSegment(File file, List<Record> records) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION) {
+                logger.warning("Segment de journal ignoré (format inconnu): " + file.getName());
+                return;
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    return; // Fin normale du segment
+                }
+
+                if (length <= 0 || length > 1 << 20) {
+                    logger.warning("Fin de " + file.getName() + " corrompue, lecture arrêtée.");
+                    return;
+                }
+
+                byte[] body = new byte[length];
+                int checksum;
+                try {
+                    input.readFully(body);
+                    checksum = input.readInt();
+                } catch (EOFException e) {
+                    logger.warning("Dernier événement de " + file.getName() + " incomplet, ignoré.");
+                    return;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warning("Événement corrompu dans " + file.getName() + ", lecture arrêtée.");
+                    return;
+                }
+
+                Record record = decode(body);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        } catch (EOFException e) {
+            logger.warning("Segment de journal vide ou tronqué: " + file.getName());
+        }
+    }
+
+    private static Record decode(byte[] body) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(body));
+        int typeIndex = data.readUnsignedByte();
+        if (typeIndex >= RecordType.values().length) {
+            return null;
+        }
+        RecordType type = RecordType.values()[typeIndex];
+        UUID playerUUID = new UUID(data.readLong(), data.readLong());
+
+        switch (type) {
+            case PROGRESS:
+                return new Record(type, playerUUID, data.readUTF(), null, null, null, 0, data.readInt(), 0);
+            case ASSIGN: {
+                String questId = data.readUTF();
+                Quest.QuestType questType = Quest.QuestType.values()[data.readUnsignedByte()];
+                Quest.QuestRarity rarity = Quest.QuestRarity.values()[data.readUnsignedByte()];
+                String target = data.readUTF();
+                int required = data.readInt();
+                int progress = data.readInt();
+                long assignedTime = data.readLong();
+                return new Record(type, playerUUID, questId, questType, rarity, target, required, progress, assignedTime);
+            }
+            case REMOVE:
+                return new Record(type, playerUUID, data.readUTF(), null, null, null, 0, 0, 0);
+            case CLAIM:
+            case COMPLETED: {
+                String questId = data.readUTF();
+                long time = data.readLong();
+                Quest.QuestRarity rarity = Quest.QuestRarity.values()[data.readUnsignedByte()];
+                return new Record(type, playerUUID, questId, null, rarity, null, 0, 0, time);
+            }
+            case RESET: {
+                Quest.QuestRarity rarity = Quest.QuestRarity.values()[data.readUnsignedByte()];
+                return new Record(type, playerUUID, null, null, rarity, null, 0, 0, data.readLong());
+            }
+            case DELETE:
+                return new Record(type, playerUUID, null, null, null, null, 0, 0, 0);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Types d'événements (l'ordre fait partie du format binaire : ajouter uniquement à la fin)
+     */
+    public enum RecordType {
+        PROGRESS, ASSIGN, REMOVE, CLAIM, COMPLETED, RESET, DELETE
+    }
+
+    /**
+     * Événement relu depuis le journal
+     */
+    public static final class Record {
+        private final RecordType type;
+        private final UUID playerUUID;
+        private final String questId;
+        private final Quest.QuestType questType;
+        private final Quest.QuestRarity rarity;
+        private final String target;
+        private final int required;
+        private final int progress;
+        private final long time;
+
+        private Record(RecordType type, UUID playerUUID, String questId, Quest.QuestType questType, Quest.QuestRarity rarity,
+                       String target, int required, int progress, long time) {
+            this.type = type;
+            this.playerUUID = playerUUID;
+            this.questId = questId;
+            this.questType = questType;
+            this.rarity = rarity;
+            this.target = target;
+            this.required = required;
+            this.progress = progress;
+            this.time = time;
+        }
+
+        public RecordType getType() { return type; }
+        public UUID getPlayerUUID() { return playerUUID; }
+        public String getQuestId() { return questId; }
+        public Quest.QuestType getQuestType() { return questType; }
+        public Quest.QuestRarity getRarity() { return rarity; }
+        public String getTarget() { return target; }
+        public int getRequired() { return required; }
+        public int getProgress() { return progress; }
+
+        /**
+         * Heure d'attribution (ASSIGN), de complétion (CLAIM, COMPLETED) ou de rotation (RESET)
+         */
+        public long getTime() { return time; }
+    }
+}
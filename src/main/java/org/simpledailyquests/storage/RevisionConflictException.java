@@ -0,0 +1,27 @@
+package org.simpledailyquests.storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Écriture refusée par un stockage partagé : un autre serveur a enregistré ces joueurs
+ * depuis la révision sur laquelle se basent les snapshots. Les autres joueurs du lot sont bien écrits.
+ */
+public class RevisionConflictException extends IOException {
+
+    private final Set<UUID> conflicts;
+
+    public RevisionConflictException(Collection<UUID> conflicts) {
+        super(conflicts.size() + " joueur(s) modifié(s) entre-temps par un autre serveur");
+        this.conflicts = Set.copyOf(conflicts);
+    }
+
+    /**
+     * Joueurs non écrits, à fusionner avec la version enregistrée
+     */
+    public Set<UUID> getConflicts() {
+        return conflicts;
+    }
+}
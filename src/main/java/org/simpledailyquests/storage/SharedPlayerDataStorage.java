@@ -0,0 +1,140 @@
+package org.simpledailyquests.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stockage partagé entre les serveurs d'un réseau (proxy) : une base SQLite placée sur un dossier commun.
+ * Chaque joueur porte une révision ; une écriture basée sur une révision dépassée est refusée
+ * (voir {@link RevisionConflictException}) puis fusionnée avec la version enregistrée par le thread d'écriture.
+ * Un bail par joueur désigne le serveur qui l'héberge : le serveur suivant attend sa libération
+ * (dernière écriture terminée) avant de lire les données.
+ */
+public class SharedPlayerDataStorage extends SqlitePlayerDataStorage {
+
+    private final long busyTimeoutMillis;
+
+    public SharedPlayerDataStorage(Logger logger, File databaseFile, long busyTimeoutMillis) {
+        super(logger, databaseFile);
+        this.busyTimeoutMillis = Math.max(0L, busyTimeoutMillis);
+    }
+
+    @Override
+    public String getName() {
+        return "shared";
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    protected void configure(Statement statement) throws SQLException {
+        // Pas de WAL : sa mémoire partagée ne fonctionne pas entre machines sur un dossier réseau
+        statement.execute("PRAGMA journal_mode=DELETE");
+        statement.execute("PRAGMA synchronous=FULL");
+        statement.execute("PRAGMA busy_timeout=" + busyTimeoutMillis); // Attente du verrou tenu par un autre serveur
+        statement.execute("PRAGMA foreign_keys=ON");
+    }
+
+    @Override
+    public synchronized void init() throws IOException {
+        super.init();
+        // Sans clé étrangère : le bail est pris avant la première écriture du joueur
+        try (Statement statement = getConnection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS player_leases ("
+                    + "uuid TEXT PRIMARY KEY, "
+                    + "owner TEXT NOT NULL, "
+                    + "expires_at INTEGER NOT NULL)");
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la création de la table des baux: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized boolean acquireLease(UUID playerUUID, String owner, long durationMillis, boolean force) throws IOException {
+        long now = System.currentTimeMillis();
+        // Une seule instruction : la vérification du détenteur et la prise du bail sont atomiques
+        String sql = "INSERT INTO player_leases (uuid, owner, expires_at) VALUES (?, ?, ?) "
+                + "ON CONFLICT(uuid) DO UPDATE SET owner = excluded.owner, expires_at = excluded.expires_at"
+                + (force ? "" : " WHERE player_leases.owner = excluded.owner OR player_leases.expires_at <= ?");
+        try (PreparedStatement statement = getConnection().prepareStatement(sql)) {
+            statement.setString(1, playerUUID.toString());
+            statement.setString(2, owner);
+            statement.setLong(3, now + durationMillis);
+            if (!force) {
+                statement.setLong(4, now);
+            }
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la prise du bail de " + playerUUID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<UUID> renewLeases(Collection<UUID> playerUUIDs, String owner, long durationMillis) throws IOException {
+        List<UUID> lost = new ArrayList<>();
+        if (playerUUIDs.isEmpty()) {
+            return lost;
+        }
+
+        Connection connection = getConnection();
+        long now = System.currentTimeMillis();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO player_leases (uuid, owner, expires_at) VALUES (?, ?, ?) "
+                            + "ON CONFLICT(uuid) DO UPDATE SET owner = excluded.owner, expires_at = excluded.expires_at "
+                            + "WHERE player_leases.owner = excluded.owner OR player_leases.expires_at <= ?")) {
+                for (UUID playerUUID : playerUUIDs) {
+                    statement.setString(1, playerUUID.toString());
+                    statement.setString(2, owner);
+                    statement.setLong(3, now + durationMillis);
+                    statement.setLong(4, now);
+                    if (statement.executeUpdate() == 0) {
+                        lost.add(playerUUID);
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new IOException("Erreur lors du renouvellement de " + playerUUIDs.size() + " bail(s): " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit();
+        }
+        return lost;
+    }
+
+    @Override
+    public synchronized void releaseLease(UUID playerUUID, String owner) throws IOException {
+        try (PreparedStatement statement = getConnection().prepareStatement(
+                "DELETE FROM player_leases WHERE uuid = ? AND owner = ?")) {
+            statement.setString(1, playerUUID.toString());
+            statement.setString(2, owner);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la libération du bail de " + playerUUID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void releaseLeases(String owner) throws IOException {
+        try (PreparedStatement statement = getConnection().prepareStatement("DELETE FROM player_leases WHERE owner = ?")) {
+            statement.setString(1, owner);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la libération des baux de " + owner + ": " + e.getMessage(), e);
+        }
+    }
+}
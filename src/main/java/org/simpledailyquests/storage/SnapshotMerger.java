@@ -0,0 +1,179 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.util.*;
+
+/**
+ * Fusion de deux versions des données d'un joueur modifiées en parallèle sur deux serveurs.
+ * Les données de quête ne font qu'avancer (progrès, complétions, rotations) :
+ * la fusion garde le plus avancé de chaque côté sans rien perdre.
+ */
+public final class SnapshotMerger {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private SnapshotMerger() {
+    }
+
+    /**
+     * Applique les modifications locales sur la version enregistrée par un autre serveur.
+     * Le résultat garde la version locale (suivi des sauvegardes), la révision enregistrée
+     * et les complétions locales à archiver.
+     */
+    public static PlayerDataSnapshot merge(PlayerDataSnapshot local, PlayerDataSnapshot stored) {
+        // Historique récent : union des deux fenêtres chaudes
+        Set<String> storedKeys = new HashSet<>();
+        for (PlayerDataSnapshot.CompletedEntry entry : stored.getCompletedQuests()) {
+            storedKeys.add(keyOf(entry));
+        }
+        Map<String, Integer> storedRollups = new HashMap<>();
+        for (PlayerDataSnapshot.DailyRollup rollup : stored.getRollups()) {
+            storedRollups.put(rollup.getDay() + ":" + rollup.getRarity(), rollup.getCount());
+        }
+        Map<String, Integer> localRollups = new HashMap<>();
+        for (PlayerDataSnapshot.DailyRollup rollup : local.getRollups()) {
+            localRollups.put(rollup.getDay() + ":" + rollup.getRarity(), rollup.getCount());
+        }
+
+        // Absentes de l'autre côté : faites ici seulement, ou déjà résumées par l'autre serveur.
+        // Pour un jour résumé de l'autre côté, le surplus de son résumé sur le nôtre borne le nombre
+        // de complétions qu'il a compactées : ce sont les plus anciennes, les suivantes sont locales.
+        Map<String, List<PlayerDataSnapshot.CompletedEntry>> candidates = new LinkedHashMap<>();
+        for (PlayerDataSnapshot.CompletedEntry entry : local.getCompletedQuests()) {
+            if (!storedKeys.contains(keyOf(entry))) {
+                candidates.computeIfAbsent(dayOf(entry.getCompletionTime()) + ":" + entry.getRarity(),
+                        key -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        List<PlayerDataSnapshot.CompletedEntry> completed = new ArrayList<>(stored.getCompletedQuests());
+        List<PlayerDataSnapshot.CompletedEntry> localOnly = new ArrayList<>();
+        for (Map.Entry<String, List<PlayerDataSnapshot.CompletedEntry>> group : candidates.entrySet()) {
+            List<PlayerDataSnapshot.CompletedEntry> entries = group.getValue();
+            int compacted = Math.max(0, storedRollups.getOrDefault(group.getKey(), 0)
+                    - localRollups.getOrDefault(group.getKey(), 0));
+            if (compacted > 0) {
+                entries.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime));
+            }
+            for (int i = Math.min(compacted, entries.size()); i < entries.size(); i++) {
+                completed.add(entries.get(i));
+                localOnly.add(entries.get(i));
+            }
+        }
+        completed.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime));
+
+        Map<String, PlayerDataSnapshot.DailyRollup> rollups = new LinkedHashMap<>();
+        for (PlayerDataSnapshot.DailyRollup rollup : stored.getRollups()) {
+            rollups.put(rollup.getDay() + ":" + rollup.getRarity(), rollup);
+        }
+        for (PlayerDataSnapshot.DailyRollup rollup : local.getRollups()) {
+            rollups.merge(rollup.getDay() + ":" + rollup.getRarity(), rollup,
+                    (a, b) -> a.getCount() >= b.getCount() ? a : b);
+        }
+
+        Map<Quest.QuestRarity, Long> lastReset = new EnumMap<>(Quest.QuestRarity.class);
+        List<PlayerDataSnapshot.ActiveQuest> active = new ArrayList<>();
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            long localReset = local.getLastReset(rarity);
+            long storedReset = stored.getLastReset(rarity);
+            lastReset.put(rarity, Math.max(localReset, storedReset));
+
+            if (localReset != storedReset) {
+                // La rotation la plus récente remplace toutes les quêtes de la rareté
+                active.addAll(questsOf(localReset > storedReset ? local : stored, rarity));
+            } else {
+                active.addAll(mergeQuests(questsOf(local, rarity), questsOf(stored, rarity), completed));
+            }
+        }
+
+        return new PlayerDataSnapshot(local.getPlayerUUID(), local.getPlayerName(), local.getVersion(), lastReset,
+                active, completed, new ArrayList<>(rollups.values()), local.getArchivedQuests(),
+                mergeCounters(local.getCounters(), stored.getCounters(), localOnly),
+                Math.max(local.getLastSeen(), stored.getLastSeen()), stored.getRevision());
+    }
+
+    /**
+     * Quêtes d'une même rotation : progrès le plus avancé, sans celles récupérées d'un côté
+     */
+    private static List<PlayerDataSnapshot.ActiveQuest> mergeQuests(List<PlayerDataSnapshot.ActiveQuest> local,
+                                                                    List<PlayerDataSnapshot.ActiveQuest> stored,
+                                                                    List<PlayerDataSnapshot.CompletedEntry> completed) {
+        Map<String, PlayerDataSnapshot.ActiveQuest> quests = new LinkedHashMap<>();
+        for (PlayerDataSnapshot.ActiveQuest quest : stored) {
+            quests.put(quest.getQuestId(), quest);
+        }
+        for (PlayerDataSnapshot.ActiveQuest quest : local) {
+            quests.merge(quest.getQuestId(), quest, (a, b) -> a.getProgress() >= b.getProgress() ? a : b);
+        }
+
+        List<PlayerDataSnapshot.ActiveQuest> merged = new ArrayList<>();
+        for (PlayerDataSnapshot.ActiveQuest quest : quests.values()) {
+            if (!isClaimed(quest, completed)) {
+                merged.add(quest);
+            }
+        }
+        return merged;
+    }
+
+    private static boolean isClaimed(PlayerDataSnapshot.ActiveQuest quest, List<PlayerDataSnapshot.CompletedEntry> completed) {
+        for (PlayerDataSnapshot.CompletedEntry entry : completed) {
+            if (entry.getQuestId().equals(quest.getQuestId()) && entry.getCompletionTime() >= quest.getAssignedTime()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compteurs enregistrés augmentés des complétions faites ici seulement.
+     * Le type d'une complétion n'étant pas conservé dans l'historique, les compteurs par type gardent le plus grand des deux.
+     */
+    private static PlayerDataSnapshot.Counters mergeCounters(PlayerDataSnapshot.Counters local,
+                                                             PlayerDataSnapshot.Counters stored,
+                                                             List<PlayerDataSnapshot.CompletedEntry> localOnly) {
+        if (stored == null) {
+            return local;
+        }
+        if (local == null) {
+            return null; // Recalculés depuis l'historique fusionné au chargement
+        }
+
+        int total = stored.getTotal() + localOnly.size();
+        Map<Quest.QuestRarity, Integer> byRarity = new EnumMap<>(Quest.QuestRarity.class);
+        byRarity.putAll(stored.getByRarity());
+        Map<Integer, Integer> byDay = new HashMap<>(stored.getByDay());
+        for (PlayerDataSnapshot.CompletedEntry entry : localOnly) {
+            byRarity.merge(entry.getRarity(), 1, Integer::sum);
+            byDay.merge(dayOf(entry.getCompletionTime()), 1, Integer::sum);
+        }
+
+        Map<Quest.QuestType, Integer> byType = new EnumMap<>(Quest.QuestType.class);
+        byType.putAll(stored.getByType());
+        for (Map.Entry<Quest.QuestType, Integer> entry : local.getByType().entrySet()) {
+            byType.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+        return new PlayerDataSnapshot.Counters(total, byRarity, byType, byDay);
+    }
+
+    private static List<PlayerDataSnapshot.ActiveQuest> questsOf(PlayerDataSnapshot snapshot, Quest.QuestRarity rarity) {
+        List<PlayerDataSnapshot.ActiveQuest> quests = new ArrayList<>();
+        for (PlayerDataSnapshot.ActiveQuest quest : snapshot.getActiveQuests()) {
+            if (quest.getRarity() == rarity) {
+                quests.add(quest);
+            }
+        }
+        return quests;
+    }
+
+    private static String keyOf(PlayerDataSnapshot.CompletedEntry entry) {
+        return entry.getQuestId() + "@" + entry.getCompletionTime();
+    }
+
+    /**
+     * Jour UTC depuis l'epoch (même découpage que l'historique)
+     */
+    private static int dayOf(long time) {
+        return (int) Math.floorDiv(time, DAY_MILLIS);
+    }
+}
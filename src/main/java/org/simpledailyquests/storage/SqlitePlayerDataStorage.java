@@ -0,0 +1,681 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Stockage SQLite embarqué : tables indexées par UUID, requêtes préparées et écritures groupées en transaction.
+ * Le pilote JDBC SQLite est fourni par le serveur (Paper/Spigot).
+ */
+public class SqlitePlayerDataStorage implements PlayerDataStorage {
+
+    private final Logger logger;
+    private final File databaseFile;
+    private Connection connection;
+
+    public SqlitePlayerDataStorage(Logger logger, File databaseFile) {
+        this.logger = logger;
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public synchronized void init() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                configure(statement);
+
+                // revision : incrémentée à chaque écriture d'un stockage partagé (concurrence optimiste)
+                statement.execute("CREATE TABLE IF NOT EXISTS players ("
+                        + "uuid TEXT PRIMARY KEY, "
+                        + "name TEXT NOT NULL, "
+                        + "last_seen INTEGER NOT NULL DEFAULT 0, "
+                        + "revision INTEGER NOT NULL DEFAULT 0)");
+                addColumnIfMissing(statement, "players", "last_seen", "INTEGER NOT NULL DEFAULT 0");
+                addColumnIfMissing(statement, "players", "revision", "INTEGER NOT NULL DEFAULT 0");
+
+                statement.execute("CREATE TABLE IF NOT EXISTS last_resets ("
+                        + "uuid TEXT NOT NULL REFERENCES players(uuid) ON DELETE CASCADE, "
+                        + "rarity TEXT NOT NULL, "
+                        + "last_reset INTEGER NOT NULL, "
+                        + "PRIMARY KEY (uuid, rarity))");
+
+                statement.execute("CREATE TABLE IF NOT EXISTS active_quests ("
+                        + "uuid TEXT NOT NULL REFERENCES players(uuid) ON DELETE CASCADE, "
+                        + "quest_id TEXT NOT NULL, "
+                        + "rarity TEXT NOT NULL, "
+                        + "type TEXT NOT NULL, "
+                        + "target TEXT NOT NULL, "
+                        + "required INTEGER NOT NULL, "
+                        + "progress INTEGER NOT NULL, "
+                        + "assigned_time INTEGER NOT NULL, "
+                        + "PRIMARY KEY (uuid, quest_id))");
+
+                statement.execute("CREATE TABLE IF NOT EXISTS completed_quests ("
+                        + "uuid TEXT NOT NULL REFERENCES players(uuid) ON DELETE CASCADE, "
+                        + "quest_id TEXT NOT NULL, "
+                        + "rarity TEXT NOT NULL, "
+                        + "completion_time INTEGER NOT NULL, "
+                        + "PRIMARY KEY (uuid, quest_id, completion_time))");
+
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_completed_rarity ON completed_quests (uuid, rarity)");
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_completed_time ON completed_quests (uuid, completion_time)");
+
+                statement.execute("CREATE TABLE IF NOT EXISTS completed_rollups ("
+                        + "uuid TEXT NOT NULL REFERENCES players(uuid) ON DELETE CASCADE, "
+                        + "day INTEGER NOT NULL, "
+                        + "rarity TEXT NOT NULL, "
+                        + "count INTEGER NOT NULL, "
+                        + "PRIMARY KEY (uuid, day, rarity))");
+
+                // kind : total, rarity, type ou day ; key : rareté, type ou jour (vide pour le total)
+                statement.execute("CREATE TABLE IF NOT EXISTS completion_counters ("
+                        + "uuid TEXT NOT NULL REFERENCES players(uuid) ON DELETE CASCADE, "
+                        + "kind TEXT NOT NULL, "
+                        + "key TEXT NOT NULL, "
+                        + "count INTEGER NOT NULL, "
+                        + "PRIMARY KEY (uuid, kind, key))");
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Pilote SQLite introuvable sur ce serveur", e);
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de l'initialisation de " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Réglages de la connexion, appliqués à l'ouverture
+     */
+    protected void configure(Statement statement) throws SQLException {
+        statement.execute("PRAGMA journal_mode=WAL");
+        statement.execute("PRAGMA synchronous=NORMAL");
+        statement.execute("PRAGMA foreign_keys=ON");
+    }
+
+    @Override
+    public synchronized PlayerDataSnapshot load(UUID playerUUID) throws IOException {
+        String uuid = playerUUID.toString();
+        try {
+            String name;
+            long lastSeen;
+            long revision;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT name, last_seen, revision FROM players WHERE uuid = ?")) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (!result.next()) {
+                        return null;
+                    }
+                    name = result.getString(1);
+                    lastSeen = result.getLong(2);
+                    revision = result.getLong(3);
+                }
+            }
+
+            Map<Quest.QuestRarity, Long> lastReset = new EnumMap<>(Quest.QuestRarity.class);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT rarity, last_reset FROM last_resets WHERE uuid = ?")) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        Quest.QuestRarity rarity = parseRarity(result.getString(1));
+                        if (rarity != null) {
+                            lastReset.put(rarity, result.getLong(2));
+                        }
+                    }
+                }
+            }
+
+            List<PlayerDataSnapshot.ActiveQuest> activeQuests = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT quest_id, rarity, type, target, required, progress, assigned_time FROM active_quests WHERE uuid = ?")) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        Quest.QuestRarity rarity = parseRarity(result.getString(2));
+                        Quest.QuestType type = parseType(result.getString(3));
+                        if (rarity == null || type == null) {
+                            logger.warning("Quête ignorée (rareté ou type invalide): " + result.getString(1));
+                            continue;
+                        }
+                        activeQuests.add(new PlayerDataSnapshot.ActiveQuest(result.getString(1), type, rarity,
+                                result.getString(4), result.getInt(5), result.getInt(6), result.getLong(7)));
+                    }
+                }
+            }
+
+            List<PlayerDataSnapshot.CompletedEntry> completedQuests = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT quest_id, completion_time, rarity FROM completed_quests WHERE uuid = ? ORDER BY completion_time")) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        Quest.QuestRarity rarity = parseRarity(result.getString(3));
+                        if (rarity != null) {
+                            completedQuests.add(new PlayerDataSnapshot.CompletedEntry(result.getString(1), result.getLong(2), rarity));
+                        }
+                    }
+                }
+            }
+
+            List<PlayerDataSnapshot.DailyRollup> rollups = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT day, rarity, count FROM completed_rollups WHERE uuid = ?")) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        Quest.QuestRarity rarity = parseRarity(result.getString(2));
+                        if (rarity != null) {
+                            rollups.add(new PlayerDataSnapshot.DailyRollup(result.getInt(1), rarity, result.getInt(3)));
+                        }
+                    }
+                }
+            }
+
+            return new PlayerDataSnapshot(playerUUID, name, 0, lastReset, activeQuests, completedQuests,
+                    rollups, Collections.emptyList(), loadCounters(uuid), lastSeen, revision);
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors du chargement de " + playerUUID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<PlayerDataSnapshot.CompletedEntry> loadCompletedQuests(UUID playerUUID, long from, long to) throws IOException {
+        List<PlayerDataSnapshot.CompletedEntry> completedQuests = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT quest_id, completion_time, rarity FROM completed_quests "
+                        + "WHERE uuid = ? AND completion_time BETWEEN ? AND ? ORDER BY completion_time")) {
+            statement.setString(1, playerUUID.toString());
+            statement.setLong(2, from);
+            statement.setLong(3, to);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    Quest.QuestRarity rarity = parseRarity(result.getString(3));
+                    if (rarity != null) {
+                        completedQuests.add(new PlayerDataSnapshot.CompletedEntry(result.getString(1), result.getLong(2), rarity));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la lecture de l'historique de " + playerUUID + ": " + e.getMessage(), e);
+        }
+        return completedQuests;
+    }
+
+    /**
+     * Lit les compteurs de complétions d'un joueur (null pour un joueur enregistré avant leur ajout)
+     */
+    private PlayerDataSnapshot.Counters loadCounters(String uuid) throws SQLException {
+        boolean found = false;
+        int total = 0;
+        Map<Quest.QuestRarity, Integer> byRarity = new EnumMap<>(Quest.QuestRarity.class);
+        Map<Quest.QuestType, Integer> byType = new EnumMap<>(Quest.QuestType.class);
+        Map<Integer, Integer> byDay = new HashMap<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT kind, key, count FROM completion_counters WHERE uuid = ?")) {
+            statement.setString(1, uuid);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    found = true;
+                    String key = result.getString(2);
+                    int count = result.getInt(3);
+                    switch (result.getString(1)) {
+                        case "total":
+                            total = count;
+                            break;
+                        case "rarity":
+                            Quest.QuestRarity rarity = parseRarity(key);
+                            if (rarity != null) {
+                                byRarity.put(rarity, count);
+                            }
+                            break;
+                        case "type":
+                            Quest.QuestType type = parseType(key);
+                            if (type != null) {
+                                byType.put(type, count);
+                            }
+                            break;
+                        case "day":
+                            try {
+                                byDay.put(Integer.parseInt(key), count);
+                            } catch (NumberFormatException e) {
+                                logger.warning("Compteur journalier ignoré (jour invalide): " + key);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+        }
+        return found ? new PlayerDataSnapshot.Counters(total, byRarity, byType, byDay) : null;
+    }
+
+    @Override
+    public synchronized List<UUID> listPlayers() throws IOException {
+        List<UUID> players = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT uuid FROM players")) {
+            while (result.next()) {
+                try {
+                    players.add(UUID.fromString(result.getString(1)));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("UUID invalide ignoré dans la base: " + result.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la lecture des joueurs: " + e.getMessage(), e);
+        }
+        return players;
+    }
+
+    @Override
+    public void save(PlayerDataSnapshot snapshot) throws IOException {
+        saveBatch(Collections.singletonList(snapshot));
+    }
+
+    @Override
+    public synchronized void saveBatch(Collection<PlayerDataSnapshot> snapshots) throws IOException {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        List<UUID> conflicts = new ArrayList<>();
+        try {
+            connection.setAutoCommit(false);
+
+            if (isShared()) {
+                snapshots = claimRevisions(snapshots, conflicts);
+            }
+
+            try (PreparedStatement upsertPlayer = connection.prepareStatement(
+                         "INSERT INTO players (uuid, name, last_seen) VALUES (?, ?, ?) "
+                                 + "ON CONFLICT(uuid) DO UPDATE SET name = excluded.name, last_seen = excluded.last_seen");
+                 PreparedStatement upsertReset = connection.prepareStatement(
+                         "INSERT INTO last_resets (uuid, rarity, last_reset) VALUES (?, ?, ?) "
+                                 + "ON CONFLICT(uuid, rarity) DO UPDATE SET last_reset = excluded.last_reset");
+                 PreparedStatement clearActive = connection.prepareStatement(
+                         "DELETE FROM active_quests WHERE uuid = ?");
+                 PreparedStatement insertActive = connection.prepareStatement(
+                         "INSERT INTO active_quests (uuid, quest_id, rarity, type, target, required, progress, assigned_time) "
+                                 + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement pruneCompleted = connection.prepareStatement(
+                         "DELETE FROM completed_quests WHERE uuid = ? AND completion_time < ?");
+                 PreparedStatement storedCompleted = connection.prepareStatement(
+                         "SELECT COUNT(*), MAX(completion_time) FROM completed_quests WHERE uuid = ? AND completion_time >= ?");
+                 PreparedStatement insertCompleted = connection.prepareStatement(
+                         "INSERT OR IGNORE INTO completed_quests (uuid, quest_id, rarity, completion_time) VALUES (?, ?, ?, ?)");
+                 PreparedStatement upsertRollup = connection.prepareStatement(
+                         "INSERT INTO completed_rollups (uuid, day, rarity, count) VALUES (?, ?, ?, ?) "
+                                 + "ON CONFLICT(uuid, day, rarity) DO UPDATE SET count = excluded.count");
+                 PreparedStatement clearCounters = connection.prepareStatement(
+                         "DELETE FROM completion_counters WHERE uuid = ?");
+                 PreparedStatement insertCounter = connection.prepareStatement(
+                         "INSERT INTO completion_counters (uuid, kind, key, count) VALUES (?, ?, ?, ?)")) {
+
+                for (PlayerDataSnapshot snapshot : snapshots) {
+                    String uuid = snapshot.getPlayerUUID().toString();
+
+                    upsertPlayer.setString(1, uuid);
+                    upsertPlayer.setString(2, snapshot.getPlayerName());
+                    upsertPlayer.setLong(3, snapshot.getLastSeen());
+                    upsertPlayer.addBatch();
+
+                    for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+                        upsertReset.setString(1, uuid);
+                        upsertReset.setString(2, rarity.name());
+                        upsertReset.setLong(3, snapshot.getLastReset(rarity));
+                        upsertReset.addBatch();
+                    }
+
+                    clearActive.setString(1, uuid);
+                    clearActive.addBatch();
+
+                    for (PlayerDataSnapshot.ActiveQuest quest : snapshot.getActiveQuests()) {
+                        insertActive.setString(1, uuid);
+                        insertActive.setString(2, quest.getQuestId());
+                        insertActive.setString(3, quest.getRarity().name());
+                        insertActive.setString(4, quest.getType().name());
+                        insertActive.setString(5, quest.getTarget());
+                        insertActive.setInt(6, quest.getRequired());
+                        insertActive.setInt(7, quest.getProgress());
+                        insertActive.setLong(8, quest.getAssignedTime());
+                        insertActive.addBatch();
+                    }
+
+                    // Seule la fenêtre chaude de l'historique est conservée en détail :
+                    // les complétions sorties de la fenêtre sont supprimées, seules les nouvelles sont ajoutées
+                    List<PlayerDataSnapshot.CompletedEntry> completedQuests = byCompletionTime(snapshot.getCompletedQuests());
+                    long oldestHot = completedQuests.isEmpty() ? Long.MAX_VALUE : completedQuests.get(0).getCompletionTime();
+                    pruneCompleted.setString(1, uuid);
+                    pruneCompleted.setLong(2, oldestHot);
+                    pruneCompleted.addBatch();
+
+                    for (PlayerDataSnapshot.CompletedEntry completed : newCompletions(storedCompleted, uuid, completedQuests, oldestHot)) {
+                        insertCompleted.setString(1, uuid);
+                        insertCompleted.setString(2, completed.getQuestId());
+                        insertCompleted.setString(3, completed.getRarity().name());
+                        insertCompleted.setLong(4, completed.getCompletionTime());
+                        insertCompleted.addBatch();
+                    }
+
+                    for (PlayerDataSnapshot.DailyRollup rollup : snapshot.getRollups()) {
+                        upsertRollup.setString(1, uuid);
+                        upsertRollup.setInt(2, rollup.getDay());
+                        upsertRollup.setString(3, rollup.getRarity().name());
+                        upsertRollup.setInt(4, rollup.getCount());
+                        upsertRollup.addBatch();
+                    }
+
+                    PlayerDataSnapshot.Counters counters = snapshot.getCounters();
+                    if (counters != null) {
+                        clearCounters.setString(1, uuid);
+                        clearCounters.addBatch();
+                        addCounter(insertCounter, uuid, "total", "", counters.getTotal());
+                        for (Map.Entry<Quest.QuestRarity, Integer> entry : counters.getByRarity().entrySet()) {
+                            addCounter(insertCounter, uuid, "rarity", entry.getKey().name(), entry.getValue());
+                        }
+                        for (Map.Entry<Quest.QuestType, Integer> entry : counters.getByType().entrySet()) {
+                            addCounter(insertCounter, uuid, "type", entry.getKey().name(), entry.getValue());
+                        }
+                        for (Map.Entry<Integer, Integer> entry : counters.getByDay().entrySet()) {
+                            addCounter(insertCounter, uuid, "day", String.valueOf(entry.getKey()), entry.getValue());
+                        }
+                    }
+                }
+
+                // Ordre imposé par les clés étrangères : joueurs d'abord
+                upsertPlayer.executeBatch();
+                upsertReset.executeBatch();
+                clearActive.executeBatch();
+                insertActive.executeBatch();
+                pruneCompleted.executeBatch();
+                insertCompleted.executeBatch();
+                upsertRollup.executeBatch();
+                clearCounters.executeBatch();
+                insertCounter.executeBatch();
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new IOException("Erreur lors de la sauvegarde de " + snapshots.size() + " joueur(s): " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit();
+        }
+
+        if (!conflicts.isEmpty()) {
+            throw new RevisionConflictException(conflicts);
+        }
+    }
+
+    /**
+     * Complétions triées par date (copie seulement si elles ne le sont pas déjà, par exemple après une migration)
+     */
+    private static List<PlayerDataSnapshot.CompletedEntry> byCompletionTime(List<PlayerDataSnapshot.CompletedEntry> entries) {
+        for (int i = 1; i < entries.size(); i++) {
+            if (entries.get(i - 1).getCompletionTime() > entries.get(i).getCompletionTime()) {
+                List<PlayerDataSnapshot.CompletedEntry> sorted = new ArrayList<>(entries);
+                sorted.sort(Comparator.comparingLong(PlayerDataSnapshot.CompletedEntry::getCompletionTime));
+                return sorted;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Complétions de la fenêtre chaude absentes de la base. L'historique ne fait que s'allonger :
+     * si la base contient exactement les complétions du snapshot jusqu'à sa plus récente, seules les suivantes sont écrites.
+     * Sinon (fusion d'un stockage partagé, base modifiée à la main), toutes sont réécrites sans doublon.
+     */
+    private List<PlayerDataSnapshot.CompletedEntry> newCompletions(PreparedStatement storedCompleted, String uuid,
+                                                                  List<PlayerDataSnapshot.CompletedEntry> completedQuests,
+                                                                  long oldestHot) throws SQLException {
+        if (completedQuests.isEmpty()) {
+            return completedQuests;
+        }
+
+        int storedCount;
+        long storedLatest;
+        storedCompleted.setString(1, uuid);
+        storedCompleted.setLong(2, oldestHot);
+        try (ResultSet result = storedCompleted.executeQuery()) {
+            result.next();
+            storedCount = result.getInt(1);
+            storedLatest = result.getLong(2);
+            if (result.wasNull()) {
+                return completedQuests; // Rien d'enregistré dans la fenêtre
+            }
+        }
+
+        int alreadyStored = 0;
+        while (alreadyStored < completedQuests.size()
+                && completedQuests.get(alreadyStored).getCompletionTime() <= storedLatest) {
+            alreadyStored++;
+        }
+        return alreadyStored == storedCount
+                ? completedQuests.subList(alreadyStored, completedQuests.size())
+                : completedQuests;
+    }
+
+    /**
+     * Passe chaque joueur à la révision suivante si personne ne l'a écrit depuis la révision du snapshot
+     * (dans la transaction d'écriture : le verrou d'écriture est pris dès la première mise à jour).
+     * Renvoie les snapshots à écrire ; les autres sont ajoutés aux conflits.
+     */
+    private List<PlayerDataSnapshot> claimRevisions(Collection<PlayerDataSnapshot> snapshots, List<UUID> conflicts) throws SQLException {
+        List<PlayerDataSnapshot> accepted = new ArrayList<>(snapshots.size());
+        try (PreparedStatement bump = connection.prepareStatement(
+                     "UPDATE players SET revision = revision + 1 WHERE uuid = ? AND revision = ?");
+             PreparedStatement create = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO players (uuid, name, last_seen, revision) VALUES (?, ?, ?, 1)")) {
+            for (PlayerDataSnapshot snapshot : snapshots) {
+                String uuid = snapshot.getPlayerUUID().toString();
+                bump.setString(1, uuid);
+                bump.setLong(2, snapshot.getRevision());
+                boolean claimed = bump.executeUpdate() == 1;
+
+                if (!claimed && snapshot.getRevision() == 0) {
+                    // Nouveau joueur : échoue si un autre serveur l'a créé entre-temps
+                    create.setString(1, uuid);
+                    create.setString(2, snapshot.getPlayerName());
+                    create.setLong(3, snapshot.getLastSeen());
+                    claimed = create.executeUpdate() == 1;
+                }
+
+                if (claimed) {
+                    accepted.add(snapshot);
+                } else {
+                    conflicts.add(snapshot.getPlayerUUID());
+                }
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public synchronized void delete(UUID playerUUID) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM players WHERE uuid = ?")) {
+            statement.setString(1, playerUUID.toString());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la suppression de " + playerUUID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteBatch(Collection<UUID> playerUUIDs) throws IOException {
+        if (playerUUIDs.isEmpty()) {
+            return;
+        }
+
+        // Une seule transaction : les tables liées suivent par ON DELETE CASCADE
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM players WHERE uuid = ?")) {
+                for (UUID playerUUID : playerUUIDs) {
+                    statement.setString(1, playerUUID.toString());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new IOException("Erreur lors de la suppression de " + playerUUIDs.size() + " joueur(s): " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    @Override
+    public synchronized void backup(File target) throws IOException {
+        // Copie cohérente de la base ouverte, sans bloquer les lectures des autres connexions
+        File copy = new File(target.getParentFile(), databaseFile.getName() + ".backup");
+        Files.deleteIfExists(copy.toPath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM INTO '" + copy.getAbsolutePath().replace("'", "''") + "'");
+        } catch (SQLException e) {
+            throw new IOException("Erreur lors de la copie de " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+
+        File temp = AtomicFiles.tempFileFor(target);
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            zip.putNextEntry(new ZipEntry(databaseFile.getName()));
+            Files.copy(copy.toPath(), zip);
+            zip.closeEntry();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        } finally {
+            Files.deleteIfExists(copy.toPath());
+        }
+        AtomicFiles.replace(temp, target);
+    }
+
+    @Override
+    public synchronized void restore(File source) throws IOException {
+        File temp = AtomicFiles.tempFileFor(databaseFile);
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+            ZipEntry entry = zip.getNextEntry();
+            if (entry == null) {
+                throw new IOException("Archive vide: " + source.getName());
+            }
+            try (OutputStream output = new FileOutputStream(temp)) {
+                zip.transferTo(output);
+            }
+        }
+
+        // La base restaurée remplace le fichier principal et son journal WAL (vidé à la fermeture).
+        // La base actuelle est mise de côté et rouverte si la restauration échoue : la connexion reste utilisable.
+        File previous = new File(databaseFile.getPath() + ".previous");
+        close();
+        try {
+            Files.deleteIfExists(new File(databaseFile.getPath() + "-wal").toPath());
+            Files.deleteIfExists(new File(databaseFile.getPath() + "-shm").toPath());
+            Files.move(databaseFile.toPath(), previous.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            AtomicFiles.replace(temp, databaseFile);
+            init();
+        } catch (IOException e) {
+            close();
+            Files.deleteIfExists(temp.toPath());
+            if (previous.exists()) {
+                Files.move(previous.toPath(), databaseFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            init();
+            throw e;
+        }
+        Files.deleteIfExists(previous.toPath());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warning("Erreur lors de la fermeture de " + databaseFile.getName() + ": " + e.getMessage());
+        }
+        connection = null;
+    }
+
+    /**
+     * Connexion ouverte par {@link #init()} (à utiliser sous le verrou de l'instance)
+     */
+    protected Connection getConnection() {
+        return connection;
+    }
+
+    protected void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warning("Échec du rollback: " + e.getMessage());
+        }
+    }
+
+    protected void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.warning("Impossible de rétablir l'auto-commit: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ajoute une colonne à une table créée par une version précédente
+     */
+    private static void addColumnIfMissing(Statement statement, String table, String column, String definition) throws SQLException {
+        try (ResultSet columns = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (columns.next()) {
+                if (columns.getString("name").equalsIgnoreCase(column)) {
+                    return;
+                }
+            }
+        }
+        statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    private static void addCounter(PreparedStatement statement, String uuid, String kind, String key, int count) throws SQLException {
+        statement.setString(1, uuid);
+        statement.setString(2, kind);
+        statement.setString(3, key);
+        statement.setInt(4, count);
+        statement.addBatch();
+    }
+
+    private static Quest.QuestRarity parseRarity(String value) {
+        try {
+            return Quest.QuestRarity.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static Quest.QuestType parseType(String value) {
+        try {
+            return Quest.QuestType.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Compare les formats de fichier joueur (YAML et binaire) sur des données générées :
+ * débit d'écriture, débit de lecture et taille sur disque.
+ * À exécuter hors du thread principal.
+ */
+public final class StorageBenchmark {
+
+    private static final int ACTIVE_QUESTS = 4;
+    private static final int COMPLETED_QUESTS = 100;
+
+    private StorageBenchmark() {
+    }
+
+    /**
+     * Lance la comparaison dans un dossier temporaire (supprimé ensuite) et renvoie le rapport ligne par ligne
+     */
+    public static List<String> run(Logger logger, File workFolder, int playerCount) throws IOException {
+        List<PlayerDataSnapshot> snapshots = generate(playerCount);
+        List<String> report = new ArrayList<>();
+
+        Result yaml = measure(new YamlPlayerDataStorage(logger, new File(workFolder, "yaml")), snapshots);
+        Result binary = measure(new BinaryPlayerDataStorage(logger, new File(workFolder, "binary")), snapshots);
+        deleteRecursively(workFolder);
+
+        report.add(playerCount + " joueur(s), " + ACTIVE_QUESTS + " quêtes actives et " + COMPLETED_QUESTS + " terminées chacun");
+        report.add(yaml.format("yaml", playerCount));
+        report.add(binary.format("binary", playerCount));
+        report.add(String.format(Locale.ROOT, "binary/yaml : écriture x%.1f, lecture x%.1f, taille %.0f%%",
+                (double) yaml.saveNanos / Math.max(1, binary.saveNanos),
+                (double) yaml.loadNanos / Math.max(1, binary.loadNanos),
+                100.0 * binary.bytes / Math.max(1, yaml.bytes)));
+        return report;
+    }
+
+    private static Result measure(FilePlayerDataStorage storage, List<PlayerDataSnapshot> snapshots) throws IOException {
+        storage.init();
+
+        long start = System.nanoTime();
+        storage.saveBatch(snapshots);
+        long saveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (PlayerDataSnapshot snapshot : snapshots) {
+            if (storage.load(snapshot.getPlayerUUID()) == null) {
+                throw new IOException("Relecture impossible de " + snapshot.getPlayerUUID() + " (" + storage.getName() + ")");
+            }
+        }
+        long loadNanos = System.nanoTime() - start;
+
+        long bytes = 0;
+        for (PlayerDataSnapshot snapshot : snapshots) {
+            bytes += storage.getPlayerFile(snapshot.getPlayerUUID()).length();
+        }
+        return new Result(saveNanos, loadNanos, bytes);
+    }
+
+    private static List<PlayerDataSnapshot> generate(int playerCount) {
+        Random random = new Random(42);
+        Quest.QuestType[] types = Quest.QuestType.values();
+        Quest.QuestRarity[] rarities = Quest.QuestRarity.values();
+        long now = System.currentTimeMillis();
+
+        List<PlayerDataSnapshot> snapshots = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            Map<Quest.QuestRarity, Long> lastReset = new EnumMap<>(Quest.QuestRarity.class);
+            for (Quest.QuestRarity rarity : rarities) {
+                lastReset.put(rarity, now - random.nextInt(86_400_000));
+            }
+
+            List<PlayerDataSnapshot.ActiveQuest> active = new ArrayList<>();
+            for (int q = 0; q < ACTIVE_QUESTS; q++) {
+                Quest.QuestType type = types[random.nextInt(types.length)];
+                Quest.QuestRarity rarity = rarities[q % rarities.length];
+                active.add(new PlayerDataSnapshot.ActiveQuest(rarity.name().toLowerCase() + "_" + type.name().toLowerCase()
+                        + "_STONE_" + (now - q), type, rarity, "STONE", 64, random.nextInt(64), now - q));
+            }
+
+            List<PlayerDataSnapshot.CompletedEntry> completed = new ArrayList<>();
+            for (int q = 0; q < COMPLETED_QUESTS; q++) {
+                Quest.QuestRarity rarity = rarities[random.nextInt(rarities.length)];
+                completed.add(new PlayerDataSnapshot.CompletedEntry(rarity.name().toLowerCase() + "_mine_DIAMOND_ORE_"
+                        + (now - q * 3_600_000L), now - q * 3_600_000L, rarity));
+            }
+
+            snapshots.add(new PlayerDataSnapshot(new UUID(random.nextLong(), random.nextLong()), "Joueur" + i, 0,
+                    lastReset, active, completed));
+        }
+        return snapshots;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class Result {
+        private final long saveNanos;
+        private final long loadNanos;
+        private final long bytes;
+
+        private Result(long saveNanos, long loadNanos, long bytes) {
+            this.saveNanos = saveNanos;
+            this.loadNanos = loadNanos;
+            this.bytes = bytes;
+        }
+
+        private String format(String name, int playerCount) {
+            return String.format(Locale.ROOT, "%s : écriture %d ms (%.0f joueurs/s), lecture %d ms (%.0f joueurs/s), %d Ko (%d o/joueur)",
+                    name,
+                    saveNanos / 1_000_000, playerCount * 1e9 / Math.max(1, saveNanos),
+                    loadNanos / 1_000_000, playerCount * 1e9 / Math.max(1, loadNanos),
+                    bytes / 1024, bytes / Math.max(1, playerCount));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.simpledailyquests.storage;
+
+import org.simpledailyquests.models.Quest;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Stockage YAML : un fichier playerdata/<uuid>.yml par joueur
+ */
+public class YamlPlayerDataStorage extends FilePlayerDataStorage {
+
+    public YamlPlayerDataStorage(Logger logger, File folder) {
+        super(logger, folder, ".yml");
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+
+    @Override
+    protected byte[] encode(PlayerDataSnapshot snapshot) {
+        FileConfiguration data = new YamlConfiguration();
+        write(snapshot, data);
+        return data.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected PlayerDataSnapshot decode(UUID playerUUID, byte[] data) throws IOException {
+        YamlConfiguration configuration = new YamlConfiguration();
+        try {
+            configuration.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Fichier YAML invalide pour " + playerUUID + ": " + e.getMessage(), e);
+        }
+        return read(playerUUID, configuration, logger);
+    }
+
+    /**
+     * Lit les données d'un joueur depuis une section YAML (fichier joueur ou ancien players-data.yml)
+     */
+    public static PlayerDataSnapshot read(UUID playerUUID, ConfigurationSection section, Logger logger) {
+        String name = section.getString("name", "Unknown");
+
+        // Temps de dernière réinitialisation
+        Map<Quest.QuestRarity, Long> lastReset = new EnumMap<>(Quest.QuestRarity.class);
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            lastReset.put(rarity, section.getLong("last-reset." + rarity.name().toLowerCase(), 0));
+        }
+
+        // Quêtes actives
+        List<PlayerDataSnapshot.ActiveQuest> activeQuests = new ArrayList<>();
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            String rarityPath = "active-quests." + rarity.name().toLowerCase();
+            if (!section.contains(rarityPath)) {
+                continue;
+            }
+
+            for (Map<?, ?> questMap : section.getMapList(rarityPath)) {
+                try {
+                    activeQuests.add(new PlayerDataSnapshot.ActiveQuest(
+                            (String) questMap.get("quest-id"),
+                            Quest.QuestType.valueOf(((String) questMap.get("type")).toUpperCase()),
+                            rarity,
+                            (String) questMap.get("target"),
+                            ((Number) questMap.get("required")).intValue(),
+                            ((Number) questMap.get("progress")).intValue(),
+                            ((Number) questMap.get("assigned-time")).longValue()));
+                } catch (Exception e) {
+                    logger.warning("Erreur lors du chargement d'une quête: " + e.getMessage());
+                }
+            }
+        }
+
+        // Quêtes terminées
+        List<PlayerDataSnapshot.CompletedEntry> completedQuests = new ArrayList<>();
+        for (Map<?, ?> completedMap : section.getMapList("completed-quests")) {
+            try {
+                completedQuests.add(new PlayerDataSnapshot.CompletedEntry(
+                        (String) completedMap.get("quest-id"),
+                        ((Number) completedMap.get("completion-time")).longValue(),
+                        Quest.QuestRarity.valueOf(((String) completedMap.get("rarity")).toUpperCase())));
+            } catch (Exception e) {
+                logger.warning("Erreur lors du chargement d'une quête terminée: " + e.getMessage());
+            }
+        }
+
+        // Totaux journaliers des complétions sorties de la fenêtre chaude
+        List<PlayerDataSnapshot.DailyRollup> rollups = new ArrayList<>();
+        ConfigurationSection rollupSection = section.getConfigurationSection("history-rollups");
+        if (rollupSection != null) {
+            for (String dayKey : rollupSection.getKeys(false)) {
+                for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+                    int count = rollupSection.getInt(dayKey + "." + rarity.name().toLowerCase(), 0);
+                    if (count <= 0) {
+                        continue;
+                    }
+                    try {
+                        rollups.add(new PlayerDataSnapshot.DailyRollup(Integer.parseInt(dayKey), rarity, count));
+                    } catch (NumberFormatException e) {
+                        logger.warning("Total journalier ignoré (jour invalide): " + dayKey);
+                    }
+                }
+            }
+        }
+
+        return new PlayerDataSnapshot(playerUUID, name, 0, lastReset, activeQuests, completedQuests,
+                rollups, Collections.emptyList(), readCounters(section.getConfigurationSection("completion-stats"), logger),
+                section.getLong("last-seen", 0));
+    }
+
+    /**
+     * Lit les compteurs de complétions (null pour un fichier écrit avant leur ajout)
+     */
+    private static PlayerDataSnapshot.Counters readCounters(ConfigurationSection section, Logger logger) {
+        if (section == null) {
+            return null;
+        }
+
+        Map<Quest.QuestRarity, Integer> byRarity = new EnumMap<>(Quest.QuestRarity.class);
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            byRarity.put(rarity, section.getInt("rarity." + rarity.name().toLowerCase(), 0));
+        }
+        Map<Quest.QuestType, Integer> byType = new EnumMap<>(Quest.QuestType.class);
+        for (Quest.QuestType type : Quest.QuestType.values()) {
+            byType.put(type, section.getInt("type." + type.name().toLowerCase(), 0));
+        }
+        Map<Integer, Integer> byDay = new HashMap<>();
+        ConfigurationSection daySection = section.getConfigurationSection("days");
+        if (daySection != null) {
+            for (String dayKey : daySection.getKeys(false)) {
+                try {
+                    byDay.put(Integer.parseInt(dayKey), daySection.getInt(dayKey, 0));
+                } catch (NumberFormatException e) {
+                    logger.warning("Compteur journalier ignoré (jour invalide): " + dayKey);
+                }
+            }
+        }
+        return new PlayerDataSnapshot.Counters(section.getInt("total", 0), byRarity, byType, byDay);
+    }
+
+    /**
+     * Écrit les données d'un joueur dans une section YAML
+     */
+    public static void write(PlayerDataSnapshot snapshot, ConfigurationSection section) {
+        section.set("name", snapshot.getPlayerName());
+        section.set("last-seen", snapshot.getLastSeen());
+
+        // Temps de dernière réinitialisation
+        for (Quest.QuestRarity rarity : Quest.QuestRarity.values()) {
+            section.set("last-reset." + rarity.name().toLowerCase(), snapshot.getLastReset(rarity));
+        }
+
+        // Quêtes actives, groupées par rareté
+        Map<Quest.QuestRarity, List<Map<String, Object>>> activeByRarity = new EnumMap<>(Quest.QuestRarity.class);
+        for (PlayerDataSnapshot.ActiveQuest quest : snapshot.getActiveQuests()) {
+            Map<String, Object> questMap = new LinkedHashMap<>();
+            questMap.put("quest-id", quest.getQuestId());
+            questMap.put("type", quest.getType().name());
+            questMap.put("target", quest.getTarget());
+            questMap.put("required", quest.getRequired());
+            questMap.put("progress", quest.getProgress());
+            questMap.put("assigned-time", quest.getAssignedTime());
+            activeByRarity.computeIfAbsent(quest.getRarity(), r -> new ArrayList<>()).add(questMap);
+        }
+        for (Map.Entry<Quest.QuestRarity, List<Map<String, Object>>> entry : activeByRarity.entrySet()) {
+            section.set("active-quests." + entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+
+        // Quêtes terminées
+        List<Map<String, Object>> completedMaps = new ArrayList<>();
+        for (PlayerDataSnapshot.CompletedEntry completed : snapshot.getCompletedQuests()) {
+            Map<String, Object> completedMap = new LinkedHashMap<>();
+            completedMap.put("quest-id", completed.getQuestId());
+            completedMap.put("completion-time", completed.getCompletionTime());
+            completedMap.put("rarity", completed.getRarity().name());
+            completedMaps.add(completedMap);
+        }
+        section.set("completed-quests", completedMaps);
+
+        for (PlayerDataSnapshot.DailyRollup rollup : snapshot.getRollups()) {
+            section.set("history-rollups." + rollup.getDay() + "." + rollup.getRarity().name().toLowerCase(), rollup.getCount());
+        }
+
+        // Compteurs de complétions
+        PlayerDataSnapshot.Counters counters = snapshot.getCounters();
+        if (counters != null) {
+            section.set("completion-stats.total", counters.getTotal());
+            for (Map.Entry<Quest.QuestRarity, Integer> entry : counters.getByRarity().entrySet()) {
+                section.set("completion-stats.rarity." + entry.getKey().name().toLowerCase(), entry.getValue());
+            }
+            for (Map.Entry<Quest.QuestType, Integer> entry : counters.getByType().entrySet()) {
+                section.set("completion-stats.type." + entry.getKey().name().toLowerCase(), entry.getValue());
+            }
+            for (Map.Entry<Integer, Integer> entry : counters.getByDay().entrySet()) {
+                section.set("completion-stats.days." + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}